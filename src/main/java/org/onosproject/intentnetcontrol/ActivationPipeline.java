@@ -0,0 +1,268 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.onlab.packet.IpPrefix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static org.onlab.util.Tools.groupedThreads;
+
+/**
+ * Bounded pool of workers running the activations of route prefixes.
+ * Each prefix is always dispatched to the same single-threaded worker, so
+ * the activations of one prefix run in order while different prefixes are
+ * activated in parallel. A prefix that is still queued or running is not
+ * dispatched again.
+ */
+
+final class ActivationPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivationPipeline.class);
+
+    private final int queueCapacity;
+    private final Set<IpPrefix> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile ExecutorService[] workers;
+
+    /**
+     * Creates an activation pipeline.
+     *
+     * @param workers       number of worker threads
+     * @param queueCapacity maximum number of activations queued per worker
+     */
+    ActivationPipeline(int workers, int queueCapacity) {
+        checkArgument(queueCapacity > 0, "Queue capacity must be positive");
+        this.queueCapacity = queueCapacity;
+        this.workers = newWorkers(workers);
+    }
+
+    private ExecutorService[] newWorkers(int count) {
+        checkArgument(count > 0, "Number of workers must be positive");
+        ExecutorService[] executors = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            executors[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                                  new LinkedBlockingQueue<>(queueCapacity),
+                                                  groupedThreads("onos/intentnetcontrol",
+                                                                 "activation-" + i, log));
+        }
+        return executors;
+    }
+
+    /**
+     * Changes the number of workers. Activations already queued are still
+     * run by the previous workers.
+     *
+     * @param count new number of worker threads
+     */
+    synchronized void resize(int count) {
+        if (count == workers.length) {
+            return;
+        }
+        ExecutorService[] previous = workers;
+        workers = newWorkers(count);
+        for (ExecutorService executor : previous) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Gets the number of workers.
+     *
+     * @return number of worker threads
+     */
+    int workers() {
+        return workers.length;
+    }
+
+    /**
+     * Gets the number of prefixes queued or being activated.
+     *
+     * @return number of pending activations
+     */
+    int pending() {
+        return inFlight.size();
+    }
+
+    /**
+     * Stops the workers, abandoning the queued activations.
+     */
+    synchronized void shutdown() {
+        for (ExecutorService executor : workers) {
+            executor.shutdownNow();
+        }
+        inFlight.clear();
+    }
+
+    /**
+     * Starts a batch of activations.
+     *
+     * @param onComplete called once all activations of the sealed batch are done
+     * @return new batch
+     */
+    Batch newBatch(Consumer<Batch> onComplete) {
+        return new Batch(onComplete);
+    }
+
+    /**
+     * Set of activations dispatched together, typically by one control
+     * cycle, with counters of their outcome.
+     */
+    final class Batch {
+
+        private final Consumer<Batch> onComplete;
+        private final long startTime = System.currentTimeMillis();
+        // Held by the batch itself until it is sealed
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final AtomicBoolean sealed = new AtomicBoolean();
+        private final AtomicInteger submitted = new AtomicInteger();
+        private final AtomicInteger redirected = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+        private volatile long duration;
+
+        private Batch(Consumer<Batch> onComplete) {
+            this.onComplete = onComplete;
+        }
+
+        /**
+         * Dispatches the activation of a route prefix.
+         *
+         * @param prefix     route prefix
+         * @param activation activation returning true if a redirect was installed
+         * @return true if the activation was dispatched, false if the prefix
+         * is already pending or the worker queue is full
+         */
+        boolean submit(IpPrefix prefix, Callable<Boolean> activation) {
+            checkState(!sealed.get(), "Batch is sealed");
+            if (!inFlight.add(prefix)) {
+                return false;
+            }
+            submitted.incrementAndGet();
+            pending.incrementAndGet();
+
+            ExecutorService[] executors = workers;
+            try {
+                executors[Math.floorMod(prefix.hashCode(), executors.length)]
+                        .execute(() -> run(prefix, activation));
+                return true;
+            } catch (RejectedExecutionException e) {
+                log.warn("Activation queue is full, dropped activation of {}", prefix);
+                rejected.incrementAndGet();
+                inFlight.remove(prefix);
+                done();
+                return false;
+            }
+        }
+
+        private void run(IpPrefix prefix, Callable<Boolean> activation) {
+            try {
+                if (activation.call()) {
+                    redirected.incrementAndGet();
+                }
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.warn("Activation of {} failed", prefix, e);
+            } finally {
+                inFlight.remove(prefix);
+                done();
+            }
+        }
+
+        /**
+         * Marks the end of the batch. No activation can be submitted
+         * afterwards, and the completion callback runs once all submitted
+         * activations are done.
+         */
+        void seal() {
+            if (sealed.compareAndSet(false, true)) {
+                done();
+            }
+        }
+
+        private void done() {
+            if (pending.decrementAndGet() == 0) {
+                duration = System.currentTimeMillis() - startTime;
+                onComplete.accept(this);
+            }
+        }
+
+        /**
+         * Gets the number of dispatched activations.
+         *
+         * @return number of submitted activations
+         */
+        int submitted() {
+            return submitted.get();
+        }
+
+        /**
+         * Gets the number of activations that installed a redirect.
+         *
+         * @return number of redirected prefixes
+         */
+        int redirected() {
+            return redirected.get();
+        }
+
+        /**
+         * Gets the number of activations that threw an exception.
+         *
+         * @return number of failed activations
+         */
+        int failed() {
+            return failed.get();
+        }
+
+        /**
+         * Gets the number of activations dropped because the worker queue was full.
+         *
+         * @return number of rejected activations
+         */
+        int rejected() {
+            return rejected.get();
+        }
+
+        /**
+         * Gets the time between the start of the batch and its completion.
+         *
+         * @return duration in milliseconds, 0 until the batch is complete
+         */
+        long duration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d submitted, %d redirected, %d failed, %d rejected in %d ms",
+                                 submitted(), redirected(), failed(), rejected(), duration);
+        }
+    }
+}
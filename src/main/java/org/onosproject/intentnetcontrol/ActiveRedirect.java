@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import com.google.common.base.MoreObjects;
+import org.onlab.packet.IpPrefix;
+import org.onosproject.net.intent.Key;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Redirect installed by the intent networking control for a route prefix,
+ * or drop rule when the prefix is blocked.
+ */
+
+public final class ActiveRedirect {
+
+    private final IpPrefix prefix;
+    private final Key intentKey;
+    private final IntentNetworkingControlConfig.ControllerConfig controller;
+    private final long installedAt;
+    private final ControlPolicy policy;
+
+    /**
+     * Creates an active redirect.
+     *
+     * @param prefix      redirected route prefix
+     * @param intentKey   key of the redirect intent
+     * @param controller  member controller the redirect was installed on
+     * @param installedAt time the redirect was installed, in milliseconds since epoch
+     */
+    public ActiveRedirect(IpPrefix prefix,
+                          Key intentKey,
+                          IntentNetworkingControlConfig.ControllerConfig controller,
+                          long installedAt) {
+        this(prefix, intentKey, controller, installedAt, ControlPolicy.REDIRECT);
+    }
+
+    /**
+     * Creates an active redirect or block.
+     *
+     * @param prefix      route prefix
+     * @param intentKey   key of the redirect intent, or a key used by no intent when the prefix is blocked
+     * @param controller  member controller the policy was applied on
+     * @param installedAt time the policy was applied, in milliseconds since epoch
+     * @param policy      policy applied to the prefix
+     */
+    public ActiveRedirect(IpPrefix prefix,
+                          Key intentKey,
+                          IntentNetworkingControlConfig.ControllerConfig controller,
+                          long installedAt,
+                          ControlPolicy policy) {
+        this.prefix = checkNotNull(prefix);
+        this.intentKey = checkNotNull(intentKey);
+        this.controller = checkNotNull(controller);
+        this.installedAt = installedAt;
+        this.policy = checkNotNull(policy);
+    }
+
+    /**
+     * Gets the redirected route prefix.
+     *
+     * @return route prefix
+     */
+    public IpPrefix prefix() {
+        return prefix;
+    }
+
+    /**
+     * Gets the key of the redirect intent.
+     *
+     * @return intent key
+     */
+    public Key intentKey() {
+        return intentKey;
+    }
+
+    /**
+     * Gets the member controller the redirect was installed on.
+     *
+     * @return controller configuration
+     */
+    public IntentNetworkingControlConfig.ControllerConfig controller() {
+        return controller;
+    }
+
+    /**
+     * Gets the time the redirect was installed.
+     *
+     * @return install time in milliseconds since epoch
+     */
+    public long installedAt() {
+        return installedAt;
+    }
+
+    /**
+     * Gets the policy applied to the prefix.
+     *
+     * @return policy
+     */
+    public ControlPolicy policy() {
+        return policy;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("prefix", prefix)
+                .add("intentKey", intentKey)
+                .add("controller", controller.ip())
+                .add("installedAt", installedAt)
+                .add("policy", policy)
+                .toString();
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+/**
+ * Policy applied to the traffic of a surging route prefix.
+ */
+
+public enum ControlPolicy {
+
+    /**
+     * Redirects the traffic of the prefix to the sink port of its member
+     * controller for further inspection.
+     */
+    REDIRECT,
+
+    /**
+     * Drops the traffic of the prefix where it enters the network.
+     */
+    BLOCK
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.FilteredConnectPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable lookup table of the member controllers by AS number, backed by
+ * a sorted primitive array so that lookups neither box nor parse the
+ * network configuration. The sink ports of the controllers are parsed once
+ * when the table is built, both as connect points for the local redirects
+ * and as the egress point of the redirect requests to the controller, and
+ * each controller gets the REST client shared by all the calls to it. The
+ * clients of the controllers left unchanged by a reconfiguration are kept,
+ * so that their connections and their bound on the concurrent calls carry
+ * over to the new table.
+ */
+
+final class ControllerTable {
+
+    private static final Logger log = LoggerFactory.getLogger(ControllerTable.class);
+
+    /**
+     * Table without any controller.
+     */
+    static final ControllerTable EMPTY =
+            new ControllerTable(new long[0], new IntentNetworkingControlConfig.ControllerConfig[0],
+                                new FilteredConnectPoint[0], new String[0], new MemberClient[0]);
+
+    private final long[] asns;
+    private final IntentNetworkingControlConfig.ControllerConfig[] controllers;
+    private final FilteredConnectPoint[] sinkPoints;
+    private final String[] sinkPointJsons;
+    private final MemberClient[] clients;
+
+    private ControllerTable(long[] asns, IntentNetworkingControlConfig.ControllerConfig[] controllers,
+                            FilteredConnectPoint[] sinkPoints, String[] sinkPointJsons, MemberClient[] clients) {
+        this.asns = asns;
+        this.controllers = controllers;
+        this.sinkPoints = sinkPoints;
+        this.sinkPointJsons = sinkPointJsons;
+        this.clients = clients;
+    }
+
+    /**
+     * Builds the table of the controllers of a configuration.
+     *
+     * @param config member controllers configuration, may be null
+     * @return controller table
+     */
+    static ControllerTable of(IntentNetworkingControlConfig config) {
+        return of(config, EMPTY);
+    }
+
+    /**
+     * Builds the table of the controllers of a new configuration, reusing
+     * the REST clients of the previous table for the controllers with the
+     * same address and credentials. A controller serving several ASes gets
+     * a single client.
+     *
+     * @param config   member controllers configuration, may be null
+     * @param previous table of the previous configuration
+     * @return controller table
+     */
+    static ControllerTable of(IntentNetworkingControlConfig config, ControllerTable previous) {
+        if (config == null) {
+            return EMPTY;
+        }
+        Map<Long, IntentNetworkingControlConfig.ControllerConfig> byAsn = new TreeMap<>();
+        for (IntentNetworkingControlConfig.ControllerConfig controller : config.controllers()) {
+            if (byAsn.putIfAbsent(controller.asn(), controller) != null) {
+                log.warn("Ignoring duplicate controller {} for AS {}", controller.ip(), controller.asn());
+            }
+        }
+
+        long[] asns = new long[byAsn.size()];
+        IntentNetworkingControlConfig.ControllerConfig[] controllers =
+                new IntentNetworkingControlConfig.ControllerConfig[byAsn.size()];
+        FilteredConnectPoint[] sinkPoints = new FilteredConnectPoint[byAsn.size()];
+        String[] sinkPointJsons = new String[byAsn.size()];
+        MemberClient[] clients = new MemberClient[byAsn.size()];
+        int i = 0;
+        for (Map.Entry<Long, IntentNetworkingControlConfig.ControllerConfig> entry : byAsn.entrySet()) {
+            IntentNetworkingControlConfig.ControllerConfig controller = entry.getValue();
+            asns[i] = entry.getKey();
+            controllers[i] = controller;
+            sinkPoints[i] = sinkPoint(controller);
+            sinkPointJsons[i] = sinkPoints[i] == null ? null : sinkPointJson(controller.sinkPort());
+            MemberClient client = reusableClient(controllers, clients, i, controller);
+            if (client == null) {
+                client = reusableClient(previous.controllers, previous.clients, previous.clients.length, controller);
+            }
+            clients[i] = client != null ? client : MemberClient.of(controller);
+            i++;
+        }
+        return new ControllerTable(asns, controllers, sinkPoints, sinkPointJsons, clients);
+    }
+
+    private static FilteredConnectPoint sinkPoint(IntentNetworkingControlConfig.ControllerConfig controller) {
+        try {
+            return new FilteredConnectPoint(ConnectPoint.deviceConnectPoint(controller.sinkPort()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring invalid sink port {} of controller {}", controller.sinkPort(), controller.ip());
+            return null;
+        }
+    }
+
+    private static String sinkPointJson(String sinkPort) {
+        int separator = sinkPort.lastIndexOf('/');
+        return JsonNodeFactory.instance.objectNode()
+                .put("port", sinkPort.substring(separator + 1))
+                .put("device", sinkPort.substring(0, separator))
+                .toString();
+    }
+
+    /**
+     * Gets the controller of an AS.
+     *
+     * @param asn AS number
+     * @return the member controller, or null if none is configured
+     */
+    IntentNetworkingControlConfig.ControllerConfig get(long asn) {
+        int index = Arrays.binarySearch(asns, asn);
+        return index < 0 ? null : controllers[index];
+    }
+
+    /**
+     * Gets the sink point of the controller of an AS.
+     *
+     * @param asn AS number
+     * @return the sink point, or null if no controller with a valid sink port is configured
+     */
+    FilteredConnectPoint sinkPoint(long asn) {
+        int index = Arrays.binarySearch(asns, asn);
+        return index < 0 ? null : sinkPoints[index];
+    }
+
+    /**
+     * Gets the sink point of the controller of an AS as the JSON egress
+     * point of an intent posted to the intent REST API.
+     *
+     * @param asn AS number
+     * @return the sink point in JSON, or null if no controller with a valid sink port is configured
+     */
+    String sinkPointJson(long asn) {
+        int index = Arrays.binarySearch(asns, asn);
+        return index < 0 ? null : sinkPointJsons[index];
+    }
+
+    /**
+     * Gets the REST client of the controller of an AS.
+     *
+     * @param asn AS number
+     * @return the REST client, or null if no controller is configured
+     */
+    MemberClient client(long asn) {
+        int index = Arrays.binarySearch(asns, asn);
+        return index < 0 ? null : clients[index];
+    }
+
+    /**
+     * Gets the REST client of a controller by address and username,
+     * whichever AS it is configured for, so that the calls to a controller
+     * use the credentials of the current configuration.
+     *
+     * @param controller member controller
+     * @return the REST client, or null if the controller is not in the table
+     */
+    MemberClient client(IntentNetworkingControlConfig.ControllerConfig controller) {
+        int index = indexOf(controllers, controllers.length, controller);
+        return index < 0 ? null : clients[index];
+    }
+
+    private static MemberClient reusableClient(IntentNetworkingControlConfig.ControllerConfig[] controllers,
+                                               MemberClient[] clients, int count,
+                                               IntentNetworkingControlConfig.ControllerConfig controller) {
+        int index = indexOf(controllers, count, controller);
+        if (index >= 0 && controllers[index].password().equals(controller.password())) {
+            return clients[index];
+        }
+        return null;
+    }
+
+    private static int indexOf(IntentNetworkingControlConfig.ControllerConfig[] controllers, int count,
+                               IntentNetworkingControlConfig.ControllerConfig controller) {
+        for (int i = 0; i < count; i++) {
+            if (controllers[i].ip().equals(controller.ip())
+                    && controllers[i].username().equals(controller.username())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of controllers in the table.
+     *
+     * @return number of controllers
+     */
+    int size() {
+        return asns.length;
+    }
+}
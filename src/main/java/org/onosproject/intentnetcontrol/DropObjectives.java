@@ -0,0 +1,190 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.IpPrefix;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleService;
+import org.onosproject.net.flow.TrafficSelector;
+import org.onosproject.net.flow.criteria.Criterion;
+import org.onosproject.net.flow.criteria.IPCriterion;
+import org.onosproject.net.flow.criteria.PortCriterion;
+import org.onosproject.net.flow.instructions.Instruction;
+import org.onosproject.net.flowobjective.DefaultForwardingObjective;
+import org.onosproject.net.flowobjective.FlowObjectiveService;
+import org.onosproject.net.flowobjective.ForwardingObjective;
+import org.onosproject.net.flowobjective.Objective;
+import org.onosproject.net.flowobjective.ObjectiveContext;
+import org.onosproject.net.flowobjective.ObjectiveError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drop rules of the blocked route prefixes, installed as forwarding
+ * objectives on the edge port their traffic enters the network from, so
+ * that it is shed at the first hop rather than carried to a sink.
+ * <p>
+ * The rules outlive the instance that installed them, so the rules already
+ * installed by the application can be read back from the flow rules and
+ * adopted after a restart or when their prefixes change hands.
+ * </p>
+ */
+
+final class DropObjectives {
+
+    private static final Logger log = LoggerFactory.getLogger(DropObjectives.class);
+
+    private final FlowObjectiveService flowObjectiveService;
+    private final FlowRuleService flowRuleService;
+    private final ApplicationId appId;
+    private final int priority;
+    private final Map<IpPrefix, ConnectPoint> ingressPoints = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the drop rules of an application.
+     *
+     * @param flowObjectiveService flow objective service
+     * @param flowRuleService      flow rule service the installed rules are read from
+     * @param appId                application installing the rules
+     * @param priority             priority of the rules
+     */
+    DropObjectives(FlowObjectiveService flowObjectiveService, FlowRuleService flowRuleService,
+                   ApplicationId appId, int priority) {
+        this.flowObjectiveService = flowObjectiveService;
+        this.flowRuleService = flowRuleService;
+        this.appId = appId;
+        this.priority = priority;
+    }
+
+    /**
+     * Drops the traffic from a route prefix entering at a connect point,
+     * moving the drop rule of the prefix if it is installed elsewhere.
+     *
+     * @param prefix  source route prefix
+     * @param ingress edge connect point the traffic enters at
+     */
+    void install(IpPrefix prefix, ConnectPoint ingress) {
+        ConnectPoint previous = ingressPoints.put(prefix, ingress);
+        if (previous != null && !previous.equals(ingress)) {
+            forward(prefix, previous, false);
+        }
+        forward(prefix, ingress, true);
+    }
+
+    /**
+     * Tracks a drop rule already installed, so that it can be moved or
+     * removed, without installing it again.
+     *
+     * @param prefix  source route prefix
+     * @param ingress edge connect point the rule is installed at
+     * @return true if the rule was not tracked yet
+     */
+    boolean adopt(IpPrefix prefix, ConnectPoint ingress) {
+        return ingressPoints.putIfAbsent(prefix, ingress) == null;
+    }
+
+    /**
+     * Reads the drop rules installed by the application from its flow
+     * rules: the rules matching the in port and the source prefix of the
+     * traffic, without any output.
+     *
+     * @return ingress point of the drop rule of each source route prefix
+     */
+    Map<IpPrefix, ConnectPoint> installed() {
+        Map<IpPrefix, ConnectPoint> installed = new HashMap<>();
+        for (FlowRule rule : flowRuleService.getFlowRulesById(appId)) {
+            if (rule.priority() != priority || rule.treatment().allInstructions().stream()
+                    .anyMatch(instruction -> instruction.type() == Instruction.Type.OUTPUT)) {
+                continue;
+            }
+            Criterion inPort = rule.selector().getCriterion(Criterion.Type.IN_PORT);
+            Criterion source = rule.selector().getCriterion(Criterion.Type.IPV4_SRC);
+            if (source == null) {
+                source = rule.selector().getCriterion(Criterion.Type.IPV6_SRC);
+            }
+            if (inPort != null && source != null) {
+                installed.put(((IPCriterion) source).ip(),
+                              new ConnectPoint(rule.deviceId(), ((PortCriterion) inPort).port()));
+            }
+        }
+        return installed;
+    }
+
+    /**
+     * Removes the drop rule of a route prefix.
+     *
+     * @param prefix source route prefix
+     * @return true if a drop rule was installed for the prefix
+     */
+    boolean remove(IpPrefix prefix) {
+        ConnectPoint ingress = ingressPoints.remove(prefix);
+        if (ingress == null) {
+            return false;
+        }
+        forward(prefix, ingress, false);
+        return true;
+    }
+
+    /**
+     * Removes every drop rule.
+     */
+    void removeAll() {
+        ingressPoints.keySet().forEach(this::remove);
+    }
+
+    /**
+     * Gets the number of installed drop rules.
+     *
+     * @return number of rules
+     */
+    int size() {
+        return ingressPoints.size();
+    }
+
+    private void forward(IpPrefix prefix, ConnectPoint ingress, boolean install) {
+        TrafficSelector.Builder selector = DefaultTrafficSelector.builder()
+                .matchInPort(ingress.port());
+        if (prefix.isIp4()) {
+            selector.matchEthType(Ethernet.TYPE_IPV4).matchIPSrc(prefix);
+        } else {
+            selector.matchEthType(Ethernet.TYPE_IPV6).matchIPv6Src(prefix);
+        }
+        ForwardingObjective.Builder objective = DefaultForwardingObjective.builder()
+                .withSelector(selector.build())
+                .withTreatment(DefaultTrafficTreatment.builder().drop().build())
+                .withFlag(ForwardingObjective.Flag.VERSATILE)
+                .withPriority(priority)
+                .fromApp(appId)
+                .makePermanent();
+        ObjectiveContext context = new ObjectiveContext() {
+            @Override
+            public void onError(Objective failed, ObjectiveError error) {
+                log.warn("Unable to {} drop rule of {} at {}: {}",
+                         install ? "install" : "remove", prefix, ingress, error);
+            }
+        };
+        flowObjectiveService.forward(ingress.deviceId(), install ? objective.add(context) : objective.remove(context));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Tracks, per visibility source, the sequence id of the last flow record
+ * received, so that only newer records have to be requested.
+ * <p>
+ * The visibility server is expected to number its flow records with
+ * contiguous sequence ids, in ascending order. When a new record of a delta
+ * does not directly follow the previous one, starting from the cursor, some
+ * records were missed or reordered and the source has to be resynchronized
+ * with a full fetch. The records of such a delta must then be discarded.
+ * </p>
+ */
+
+final class FlowFeedCursor {
+
+    /**
+     * Cursor position of a source that has to be fetched in full.
+     */
+    static final long NONE = -1;
+
+    private final Map<String, Long> positions = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the current cursor position of a source.
+     *
+     * @param source visibility source
+     * @return sequence id of the last record received, or NONE
+     */
+    long position(String source) {
+        return positions.getOrDefault(source, NONE);
+    }
+
+    /**
+     * Forgets the cursor of a source so the next fetch is a full resync.
+     *
+     * @param source visibility source
+     */
+    void reset(String source) {
+        positions.remove(source);
+    }
+
+    /**
+     * Forgets the cursors of all sources.
+     */
+    void resetAll() {
+        positions.clear();
+    }
+
+    /**
+     * Wraps a flow record handler so that records already seen are skipped
+     * and gaps in the sequence are detected.
+     *
+     * @param source  visibility source the records are read from
+     * @param handler handler receiving the new records
+     * @return tracker to pass to the flow feed parser
+     */
+    Tracker track(String source, Consumer<FlowRecord> handler) {
+        return new Tracker(source, position(source), handler);
+    }
+
+    /**
+     * Flow record handler following the sequence ids of one fetch.
+     */
+    final class Tracker implements Consumer<FlowRecord> {
+
+        private final String source;
+        private final long since;
+        private final Consumer<FlowRecord> handler;
+        private long highest;
+
+        private Tracker(String source, long since, Consumer<FlowRecord> handler) {
+            this.source = source;
+            this.since = since;
+            this.handler = handler;
+            this.highest = since;
+        }
+
+        @Override
+        public void accept(FlowRecord record) {
+            long sequence = record.sequence();
+            if (sequence != FlowRecord.NO_SEQUENCE) {
+                if (sequence <= since) {
+                    return;
+                }
+                if (since != NONE && sequence != highest + 1) {
+                    throw new GapException(source, highest, sequence);
+                }
+                highest = Math.max(highest, sequence);
+            }
+            handler.accept(record);
+        }
+
+        /**
+         * Moves the cursor of the source past the records of this fetch.
+         * Only to be called once the fetch has been read completely.
+         */
+        void complete() {
+            if (highest != NONE) {
+                positions.merge(source, highest, Math::max);
+            }
+        }
+    }
+
+    /**
+     * Signals that records between the cursor and the delta were missed.
+     */
+    static final class GapException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        GapException(String message) {
+            super(message);
+        }
+
+        GapException(String source, long since, long sequence) {
+            this("Flow feed " + source + " jumped from sequence "
+                         + since + " to " + sequence);
+        }
+    }
+}
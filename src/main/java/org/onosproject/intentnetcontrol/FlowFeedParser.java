@@ -0,0 +1,283 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser for the flow feed of the visibility server.
+ * <p>
+ * Flow records are read token by token straight from the input stream and
+ * handed to a consumer one at a time, so the feed is never materialized as a
+ * string or as a JSON tree. Any object carrying a source address is taken as
+ * a flow record, wherever it appears: in a top-level array, in several
+ * concatenated arrays, or nested inside a wrapping object.
+ * </p>
+ * <p>
+ * Source addresses are parsed from the token characters directly into
+ * primitive values: an int for dotted-quad IPv4 addresses, two longs for
+ * IPv6 addresses in any of their text forms. Records whose source is
+ * neither are dropped.
+ * </p>
+ */
+
+public final class FlowFeedParser {
+
+    public static final String SOURCE_ADDRESS = "source_address";
+    public static final String NUMBER_OF_PACKET = "number_of_packet";
+    public static final String NUMBER_OF_BYTE = "number_of_byte";
+    public static final String SEQUENCE = "sequence";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Result of parseIp4 for malformed addresses.
+     */
+    static final long INVALID_ADDRESS = -1;
+
+    /**
+     * Number of 16-bit groups of an IPv6 address.
+     */
+    static final int IP6_GROUPS = 8;
+
+    // Utility class, no instances
+    private FlowFeedParser() {
+    }
+
+    /**
+     * Parses all flow records available from the given input stream.
+     * The stream is consumed but not closed.
+     *
+     * @param in      input stream of the flow feed
+     * @param handler consumer receiving each parsed flow record
+     * @return the number of flow records parsed
+     * @throws IOException if the stream cannot be read or is not valid JSON
+     */
+    public static int parse(InputStream in, Consumer<FlowRecord> handler) throws IOException {
+        int records = 0;
+        // Scratch groups of the IPv6 source addresses, reused for every record
+        int[] groups = new int[IP6_GROUPS];
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                records += parseValue(parser, token, handler, groups);
+            }
+        }
+        return records;
+    }
+
+    private static int parseValue(JsonParser parser, JsonToken token,
+                                  Consumer<FlowRecord> handler, int[] groups) throws IOException {
+        if (token == JsonToken.START_ARRAY) {
+            int records = 0;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IOException("Flow feed ended inside an array");
+                }
+                records += parseValue(parser, token, handler, groups);
+            }
+            return records;
+        } else if (token == JsonToken.START_OBJECT) {
+            return parseObject(parser, handler, groups);
+        }
+        return 0;
+    }
+
+    private static int parseObject(JsonParser parser, Consumer<FlowRecord> handler,
+                                   int[] groups) throws IOException {
+        int records = 0;
+        boolean hasSource = false;
+        long sourceAddress = INVALID_ADDRESS;
+        boolean ip6Source = false;
+        long packetCount = 0;
+        long byteCount = 0;
+        long sequence = FlowRecord.NO_SEQUENCE;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+            if (token != JsonToken.FIELD_NAME) {
+                throw new IOException("Flow feed ended inside an object");
+            }
+            String field = parser.getCurrentName();
+            token = parser.nextToken();
+
+            if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+                records += parseValue(parser, token, handler, groups);
+            } else if (SOURCE_ADDRESS.equals(field)) {
+                hasSource = true;
+                if (token == JsonToken.VALUE_STRING) {
+                    char[] chars = parser.getTextCharacters();
+                    int offset = parser.getTextOffset();
+                    int length = parser.getTextLength();
+                    sourceAddress = parseIp4(chars, offset, length);
+                    ip6Source = sourceAddress == INVALID_ADDRESS
+                            && parseIp6(chars, offset, length, groups);
+                }
+            } else if (NUMBER_OF_PACKET.equals(field)) {
+                packetCount = parser.getValueAsLong();
+            } else if (NUMBER_OF_BYTE.equals(field)) {
+                byteCount = parser.getValueAsLong();
+            } else if (SEQUENCE.equals(field)) {
+                sequence = parser.getValueAsLong(FlowRecord.NO_SEQUENCE);
+            }
+        }
+
+        if (hasSource && ip6Source) {
+            handler.accept(new FlowRecord(high(groups), low(groups), packetCount, byteCount, sequence));
+            records++;
+        } else if (hasSource && sourceAddress != INVALID_ADDRESS) {
+            handler.accept(new FlowRecord((int) sourceAddress, packetCount, byteCount, sequence));
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * Parses a dotted-quad IPv4 address without allocating.
+     *
+     * @param chars  buffer holding the address
+     * @param offset offset of the address in the buffer
+     * @param length length of the address
+     * @return the address as an unsigned int value, or INVALID_ADDRESS
+     */
+    static long parseIp4(char[] chars, int offset, int length) {
+        int end = offset + length;
+        long address = 0;
+        int octet = -1;
+        int dots = 0;
+
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                octet = octet < 0 ? c - '0' : octet * 10 + (c - '0');
+                if (octet > 255) {
+                    return INVALID_ADDRESS;
+                }
+            } else if (c == '.' && octet >= 0 && dots < 3) {
+                address = (address << 8) | octet;
+                octet = -1;
+                dots++;
+            } else {
+                return INVALID_ADDRESS;
+            }
+        }
+        if (dots != 3 || octet < 0) {
+            return INVALID_ADDRESS;
+        }
+        return (address << 8) | octet;
+    }
+
+    /**
+     * Parses an IPv6 address without allocating. All text forms are
+     * accepted: full, with a run of zero groups compressed to "::", and with
+     * the low 32 bits written as a dotted-quad IPv4 address.
+     *
+     * @param chars  buffer holding the address
+     * @param offset offset of the address in the buffer
+     * @param length length of the address
+     * @param groups receives the eight 16-bit groups of the address
+     * @return true if the address is valid, false otherwise
+     */
+    static boolean parseIp6(char[] chars, int offset, int length, int[] groups) {
+        int end = offset + length;
+        int count = 0;
+        int gap = -1;
+        int i = offset;
+        if (length >= 2 && chars[i] == ':' && chars[i + 1] == ':') {
+            gap = 0;
+            i += 2;
+        }
+
+        while (i < end) {
+            int start = i;
+            int group = 0;
+            while (i < end && i - start < 4) {
+                int digit = Character.digit(chars[i], 16);
+                if (digit < 0) {
+                    break;
+                }
+                group = group << 4 | digit;
+                i++;
+            }
+            if (i < end && chars[i] == '.') {
+                // Embedded IPv4 address, only allowed as the last two groups
+                long address = count <= IP6_GROUPS - 2 ? parseIp4(chars, start, end - start) : INVALID_ADDRESS;
+                if (address == INVALID_ADDRESS) {
+                    return false;
+                }
+                groups[count++] = (int) (address >>> 16);
+                groups[count++] = (int) address & 0xffff;
+                break;
+            }
+            if (i == start || count == IP6_GROUPS) {
+                return false;
+            }
+            groups[count++] = group;
+            if (i == end) {
+                break;
+            }
+            if (chars[i++] != ':' || i == end) {
+                return false;
+            }
+            if (chars[i] == ':') {
+                if (gap >= 0) {
+                    return false;
+                }
+                gap = count;
+                i++;
+            }
+        }
+
+        if (gap < 0) {
+            return count == IP6_GROUPS;
+        }
+        if (count == IP6_GROUPS) {
+            return false;
+        }
+        int tail = count - gap;
+        System.arraycopy(groups, gap, groups, IP6_GROUPS - tail, tail);
+        Arrays.fill(groups, gap, IP6_GROUPS - tail, 0);
+        return true;
+    }
+
+    /**
+     * Gets the high 64 bits of an IPv6 address from its groups.
+     *
+     * @param groups groups of the address
+     * @return high bits of the address
+     */
+    static long high(int[] groups) {
+        return (long) groups[0] << 48 | (long) groups[1] << 32 | (long) groups[2] << 16 | groups[3];
+    }
+
+    /**
+     * Gets the low 64 bits of an IPv6 address from its groups.
+     *
+     * @param groups groups of the address
+     * @return low bits of the address
+     */
+    static long low(int[] groups) {
+        return (long) groups[4] << 48 | (long) groups[5] << 32 | (long) groups[6] << 16 | groups[7];
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import com.google.common.base.MoreObjects;
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.Ip6Address;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact representation of one flow record reported by the visibility server.
+ */
+
+public final class FlowRecord {
+
+    /**
+     * Sequence value of records that carry no sequence id.
+     */
+    public static final long NO_SEQUENCE = -1;
+
+    private final boolean ip6;
+    private final int sourceAddress;
+    private final long sourceHigh;
+    private final long sourceLow;
+    private final long packetCount;
+    private final long byteCount;
+    private final long sequence;
+
+    /**
+     * Creates a flow record of an IPv4 source.
+     *
+     * @param sourceAddress IPv4 source address of the flow
+     * @param packetCount   number of packets counted for the flow
+     * @param byteCount     number of bytes counted for the flow
+     * @param sequence      sequence id assigned by the visibility server,
+     *                      or NO_SEQUENCE if none was reported
+     */
+    public FlowRecord(int sourceAddress, long packetCount, long byteCount, long sequence) {
+        this.ip6 = false;
+        this.sourceAddress = sourceAddress;
+        this.sourceHigh = 0;
+        this.sourceLow = 0;
+        this.packetCount = packetCount;
+        this.byteCount = byteCount;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Creates a flow record of an IPv6 source.
+     *
+     * @param sourceHigh  high 64 bits of the IPv6 source address of the flow
+     * @param sourceLow   low 64 bits of the IPv6 source address of the flow
+     * @param packetCount number of packets counted for the flow
+     * @param byteCount   number of bytes counted for the flow
+     * @param sequence    sequence id assigned by the visibility server,
+     *                    or NO_SEQUENCE if none was reported
+     */
+    public FlowRecord(long sourceHigh, long sourceLow, long packetCount, long byteCount, long sequence) {
+        this.ip6 = true;
+        this.sourceAddress = 0;
+        this.sourceHigh = sourceHigh;
+        this.sourceLow = sourceLow;
+        this.packetCount = packetCount;
+        this.byteCount = byteCount;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Tells whether the source address of the flow is an IPv6 address.
+     *
+     * @return true for an IPv6 source, false for an IPv4 source
+     */
+    public boolean isIp6() {
+        return ip6;
+    }
+
+    /**
+     * Gets the IPv4 source address of the flow.
+     *
+     * @return source address as an int, 0 for an IPv6 source
+     */
+    public int sourceAddress() {
+        return sourceAddress;
+    }
+
+    /**
+     * Gets the high 64 bits of the IPv6 source address of the flow.
+     *
+     * @return high bits of the source address, 0 for an IPv4 source
+     */
+    public long sourceHigh() {
+        return sourceHigh;
+    }
+
+    /**
+     * Gets the low 64 bits of the IPv6 source address of the flow.
+     *
+     * @return low bits of the source address, 0 for an IPv4 source
+     */
+    public long sourceLow() {
+        return sourceLow;
+    }
+
+    /**
+     * Gets the number of packets counted for the flow.
+     *
+     * @return packet count
+     */
+    public long packetCount() {
+        return packetCount;
+    }
+
+    /**
+     * Gets the number of bytes counted for the flow.
+     *
+     * @return byte count
+     */
+    public long byteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Gets the sequence id assigned to the record by the visibility server.
+     *
+     * @return sequence id, or NO_SEQUENCE if none was reported
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("sourceAddress", ip6
+                        ? Ip6Address.valueOf(ByteBuffer.allocate(Ip6Address.BYTE_LENGTH)
+                                                     .putLong(sourceHigh).putLong(sourceLow).array())
+                        : Ip4Address.valueOf(sourceAddress))
+                .add("packetCount", packetCount)
+                .add("byteCount", byteCount)
+                .add("sequence", sequence)
+                .toString();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Flow counters of one flow report aggregated per subnet, either polled
+ * from or pushed by the visibility server. The subnet key of an IPv4 flow
+ * is its source address masked to the subnet length, as an unsigned value.
+ * IPv6 flows are aggregated separately into subnets no longer than /64,
+ * keyed by the masked high 64 bits of their source address.
+ * Not thread-safe.
+ */
+
+final class FlowReport {
+
+    /**
+     * Longest prefix length IPv6 flows may be aggregated into.
+     */
+    static final int MAX_IP6_SUBNET_LENGTH = Long.SIZE;
+
+    private final long timestamp;
+    private final int subnetLength;
+    private final int subnetMask;
+    private final int ip6SubnetLength;
+    private final long ip6SubnetMask;
+    private final boolean incremental;
+    private final SubnetCounterMap subnetPackets = new SubnetCounterMap();
+    private final SubnetCounterMap subnetBytes = new SubnetCounterMap();
+    private final SubnetCounterMap ip6SubnetPackets = new SubnetCounterMap();
+    private final SubnetCounterMap ip6SubnetBytes = new SubnetCounterMap();
+    private int flows;
+
+    /**
+     * Receives the aggregated counters of each subnet of the report.
+     */
+    interface SubnetConsumer {
+        void accept(long subnet, long packetCount, long byteCount);
+    }
+
+    /**
+     * Creates an empty flow report of cumulative counters.
+     *
+     * @param timestamp       time the counters were sampled, in milliseconds
+     * @param subnetLength    prefix length of the subnets IPv4 flows are aggregated into
+     * @param ip6SubnetLength prefix length of the subnets IPv6 flows are aggregated into
+     */
+    FlowReport(long timestamp, int subnetLength, int ip6SubnetLength) {
+        this(timestamp, subnetLength, ip6SubnetLength, false);
+    }
+
+    /**
+     * Creates an empty flow report.
+     *
+     * @param timestamp       time the counters were sampled, in milliseconds
+     * @param subnetLength    prefix length of the subnets IPv4 flows are aggregated into
+     * @param ip6SubnetLength prefix length of the subnets IPv6 flows are aggregated into
+     * @param incremental     true if the report only holds the flow records
+     *                        added since the previous report, false if it
+     *                        holds the cumulative counters of all flows
+     */
+    FlowReport(long timestamp, int subnetLength, int ip6SubnetLength, boolean incremental) {
+        checkArgument(0 <= ip6SubnetLength && ip6SubnetLength <= MAX_IP6_SUBNET_LENGTH,
+                      "Invalid IPv6 subnet length %s", ip6SubnetLength);
+        this.timestamp = timestamp;
+        this.subnetLength = subnetLength;
+        this.subnetMask = subnetLength == 0 ? 0 : -1 << (Integer.SIZE - subnetLength);
+        this.ip6SubnetLength = ip6SubnetLength;
+        this.ip6SubnetMask = ip6SubnetLength == 0 ? 0 : -1L << (Long.SIZE - ip6SubnetLength);
+        this.incremental = incremental;
+    }
+
+    /**
+     * Adds the counters of a flow to the counters of its subnet.
+     *
+     * @param flow flow record
+     */
+    void add(FlowRecord flow) {
+        flows++;
+        if (flow.isIp6()) {
+            long subnet = flow.sourceHigh() & ip6SubnetMask;
+            ip6SubnetPackets.add(subnet, flow.packetCount());
+            ip6SubnetBytes.add(subnet, flow.byteCount());
+            return;
+        }
+        long subnet = Integer.toUnsignedLong(flow.sourceAddress() & subnetMask);
+        subnetPackets.add(subnet, flow.packetCount());
+        subnetBytes.add(subnet, flow.byteCount());
+    }
+
+    /**
+     * Passes every IPv4 subnet of the report and its counters to the consumer.
+     *
+     * @param consumer subnet consumer
+     */
+    void forEach(SubnetConsumer consumer) {
+        subnetPackets.forEach((subnet, packetCount) ->
+                consumer.accept(subnet, packetCount, subnetBytes.get(subnet)));
+    }
+
+    /**
+     * Passes every IPv6 subnet of the report and its counters to the
+     * consumer. The subnet is given as the high 64 bits of its prefix.
+     *
+     * @param consumer subnet consumer
+     */
+    void forEachIp6(SubnetConsumer consumer) {
+        ip6SubnetPackets.forEach((subnet, packetCount) ->
+                consumer.accept(subnet, packetCount, ip6SubnetBytes.get(subnet)));
+    }
+
+    /**
+     * Gets the time the counters were sampled.
+     *
+     * @return sample time in milliseconds
+     */
+    long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Checks whether the counters of the report are increments since the
+     * previous report rather than cumulative counters.
+     *
+     * @return true if the report is incremental
+     */
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Gets the prefix length of the IPv4 subnets of the report.
+     *
+     * @return subnet prefix length
+     */
+    int subnetLength() {
+        return subnetLength;
+    }
+
+    /**
+     * Gets the prefix length of the IPv6 subnets of the report.
+     *
+     * @return IPv6 subnet prefix length
+     */
+    int ip6SubnetLength() {
+        return ip6SubnetLength;
+    }
+
+    /**
+     * Gets the number of flow records added to the report.
+     *
+     * @return number of flows
+     */
+    int flows() {
+        return flows;
+    }
+
+    /**
+     * Gets the number of distinct subnets in the report.
+     *
+     * @return number of subnets
+     */
+    int subnets() {
+        return subnetPackets.size() + ip6SubnetPackets.size();
+    }
+}
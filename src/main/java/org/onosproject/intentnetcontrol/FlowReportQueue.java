@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded queue of the flow reports pushed by the visibility server. Each
+ * report queued wakes the given executor up to drain the queue, so pushed
+ * reports are detected right away rather than on the next control cycle.
+ */
+
+final class FlowReportQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(FlowReportQueue.class);
+
+    private final BlockingQueue<FlowReport> reports;
+    private final Consumer<FlowReport> handler;
+
+    /**
+     * Creates a flow report queue.
+     *
+     * @param capacity maximum number of pending reports
+     * @param handler  handler processing each report on the draining executor
+     */
+    FlowReportQueue(int capacity, Consumer<FlowReport> handler) {
+        checkArgument(capacity > 0, "Queue capacity must be positive");
+        this.reports = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+    }
+
+    /**
+     * Queues a report and schedules the queue to be drained.
+     *
+     * @param report   flow report
+     * @param executor executor draining the queue, or null to leave the
+     *                 report pending until the next drain
+     * @return true if the report was queued, false if the queue is full
+     */
+    boolean offer(FlowReport report, Executor executor) {
+        if (!reports.offer(report)) {
+            return false;
+        }
+        if (executor != null) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                log.debug("Executor is stopped, flow report left pending");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hands every pending report to the handler.
+     */
+    void drain() {
+        FlowReport report;
+        while ((report = reports.poll()) != null) {
+            try {
+                handler.accept(report);
+            } catch (Exception e) {
+                log.warn("Unable to process flow report", e);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of pending reports.
+     *
+     * @return number of reports
+     */
+    int size() {
+        return reports.size();
+    }
+}
@@ -19,21 +19,39 @@ package org.onosproject.intentnetcontrol;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Deactivate;
 import org.apache.felix.scr.annotations.Component;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.apache.felix.scr.annotations.Service;
+import org.onlab.packet.Ip4Prefix;
+import org.onlab.packet.IpPrefix;
+import org.onlab.util.Tools;
 import org.onosproject.app.ApplicationService;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.component.ComponentService;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.core.CoreService;
-import org.onosproject.intentsync.IntentSynchronizationService;
 import org.onosproject.net.config.ConfigFactory;
 import org.onosproject.net.config.NetworkConfigRegistry;
 import org.onosproject.net.config.NetworkConfigService;
 import org.onosproject.net.config.basics.SubjectFactories;
+import org.onosproject.net.flow.FlowRuleService;
+import org.onosproject.net.flowobjective.FlowObjectiveService;
 import org.onosproject.net.intent.IntentService;
+import org.onosproject.net.intent.MultiPointToSinglePointIntent;
+import org.onosproject.net.intent.WorkPartitionService;
+import org.onosproject.routeservice.RouteService;
 import org.onosproject.routing.bgp.BgpInfoService;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Map;
+
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
@@ -41,13 +59,80 @@ import static org.slf4j.LoggerFactory.getLogger;
  */
 
 @Component(immediate = true)
-
-public class IntentNetworkingControl {
+@Service
+public class IntentNetworkingControl implements IntentNetworkingControlService {
 
     public static final String INTENT_NETWORKING_CONTROL_APP = "org.onosproject.intentnetcontrol";
 
     private static final Logger log = getLogger(IntentNetworkingControl.class);
 
+    static final int DEFAULT_CYCLE_INTERVAL = 10;
+    static final int DEFAULT_PACKET_RATE_THRESHOLD = 10000;
+    static final long DEFAULT_BYTE_RATE_THRESHOLD = 125000000L;
+    static final int DEFAULT_RATE_TIME_CONSTANT = 30;
+    static final int DEFAULT_MIN_AGGREGATION_LENGTH = 8;
+    static final int DEFAULT_MAX_AGGREGATION_LENGTH = 24;
+    static final int DEFAULT_MIN_IP6_AGGREGATION_LENGTH = 16;
+    static final int DEFAULT_MAX_IP6_AGGREGATION_LENGTH = 48;
+    static final int DEFAULT_ACTIVATION_WORKERS = 4;
+    static final int DEFAULT_REDIRECT_IDLE_TIMEOUT = 300;
+
+    @Property(name = "cycleInterval", intValue = DEFAULT_CYCLE_INTERVAL,
+            label = "Interval in seconds between two control cycles; default is 10 sec")
+    private int cycleInterval = DEFAULT_CYCLE_INTERVAL;
+
+    @Property(name = "incrementalFlowFeed", boolValue = false,
+            label = "Request only flow records newer than the last received sequence id; default is false")
+    private boolean incrementalFlowFeed = false;
+
+    @Property(name = "flowFeedPolling", boolValue = true,
+            label = "Poll the visibility flow feed every cycle; disable when flow reports "
+                    + "are pushed by the visibility server; default is true")
+    private boolean flowFeedPolling = true;
+
+    @Property(name = "packetRateThreshold", intValue = DEFAULT_PACKET_RATE_THRESHOLD,
+            label = "Packet rate of a subnet in packets/sec that triggers a redirect, 0 to disable; "
+                    + "default is 10000")
+    private int packetRateThreshold = DEFAULT_PACKET_RATE_THRESHOLD;
+
+    @Property(name = "byteRateThreshold", longValue = DEFAULT_BYTE_RATE_THRESHOLD,
+            label = "Byte rate of a subnet in bytes/sec that triggers a redirect, 0 to disable; "
+                    + "default is 125000000 (1 Gbps)")
+    private long byteRateThreshold = DEFAULT_BYTE_RATE_THRESHOLD;
+
+    @Property(name = "rateTimeConstant", intValue = DEFAULT_RATE_TIME_CONSTANT,
+            label = "Time constant in seconds of the subnet rate moving averages; default is 30 sec")
+    private int rateTimeConstant = DEFAULT_RATE_TIME_CONSTANT;
+
+    @Property(name = "minAggregationLength", intValue = DEFAULT_MIN_AGGREGATION_LENGTH,
+            label = "Shortest announced prefix length a surging subnet may be redirected through; "
+                    + "default is 8")
+    private int minAggregationLength = DEFAULT_MIN_AGGREGATION_LENGTH;
+
+    @Property(name = "maxAggregationLength", intValue = DEFAULT_MAX_AGGREGATION_LENGTH,
+            label = "Prefix length flows are aggregated into and longest announced prefix length "
+                    + "a surging subnet may be redirected through; default is 24")
+    private int maxAggregationLength = DEFAULT_MAX_AGGREGATION_LENGTH;
+
+    @Property(name = "minIp6AggregationLength", intValue = DEFAULT_MIN_IP6_AGGREGATION_LENGTH,
+            label = "Shortest announced IPv6 prefix length a surging subnet may be redirected through; "
+                    + "default is 16")
+    private int minIp6AggregationLength = DEFAULT_MIN_IP6_AGGREGATION_LENGTH;
+
+    @Property(name = "maxIp6AggregationLength", intValue = DEFAULT_MAX_IP6_AGGREGATION_LENGTH,
+            label = "Prefix length IPv6 flows are aggregated into, at most 64, and longest announced "
+                    + "IPv6 prefix length a surging subnet may be redirected through; default is 48")
+    private int maxIp6AggregationLength = DEFAULT_MAX_IP6_AGGREGATION_LENGTH;
+
+    @Property(name = "activationWorkers", intValue = DEFAULT_ACTIVATION_WORKERS,
+            label = "Number of workers redirecting surging prefixes in parallel; default is 4")
+    private int activationWorkers = DEFAULT_ACTIVATION_WORKERS;
+
+    @Property(name = "redirectIdleTimeout", intValue = DEFAULT_REDIRECT_IDLE_TIMEOUT,
+            label = "Time in seconds a redirect stays in place once its prefix is no longer surging, "
+                    + "0 to never withdraw redirects; default is 300 sec")
+    private int redirectIdleTimeout = DEFAULT_REDIRECT_IDLE_TIMEOUT;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected CoreService coreService;
 
@@ -61,7 +146,7 @@ public class IntentNetworkingControl {
     protected IntentService intentService;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
-    protected IntentSynchronizationService intentSyncService;
+    protected WorkPartitionService workPartitionService;
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected NetworkConfigService configService;
@@ -69,11 +154,25 @@ public class IntentNetworkingControl {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected BgpInfoService bgpInfoService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected RouteService routeService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected FlowObjectiveService flowObjectiveService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected FlowRuleService flowRuleService;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected NetworkConfigRegistry registry;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
+
     private ApplicationId appId;
 
+    private volatile IntentNetworkingControlDaemon intentNetworkingControlDaemon;
+
     Class<IntentNetworkingControl> configClass = IntentNetworkingControl.class;
     public static final String CONFIG_KEY = "members";
 
@@ -87,26 +186,214 @@ public class IntentNetworkingControl {
             };
 
     @Activate
-    protected void activate() {
+    protected void activate(ComponentContext context) {
         componentService.activate(appId, IntentNetworkingControl.class.getName());
         appId = coreService.registerApplication(INTENT_NETWORKING_CONTROL_APP);
         registry.registerConfigFactory(configFactory);
+        cfgService.registerProperties(getClass());
+        readComponentConfiguration(context);
 
-        IntentNetworkingControlDaemon intentNetworkingControlDaemon =
+        intentNetworkingControlDaemon =
                 new IntentNetworkingControlDaemon(appId,
                                                   intentService,
-                                                  intentSyncService,
+                                                  workPartitionService,
                                                   configService,
-                                                  bgpInfoService);
+                                                  bgpInfoService,
+                                                  routeService,
+                                                  flowObjectiveService,
+                                                  flowRuleService);
 
-        intentNetworkingControlDaemon.daemonize();
+        intentNetworkingControlDaemon.setIncrementalFlowFeed(incrementalFlowFeed);
+        intentNetworkingControlDaemon.setFlowFeedPolling(flowFeedPolling);
+        intentNetworkingControlDaemon.configureDetection(packetRateThreshold,
+                                                         byteRateThreshold,
+                                                         rateTimeConstant);
+        intentNetworkingControlDaemon.configureAggregation(minAggregationLength,
+                                                           maxAggregationLength);
+        intentNetworkingControlDaemon.configureIp6Aggregation(minIp6AggregationLength,
+                                                              maxIp6AggregationLength);
+        intentNetworkingControlDaemon.setActivationWorkers(activationWorkers);
+        intentNetworkingControlDaemon.setRedirectIdleTimeout(redirectIdleTimeout);
+        intentNetworkingControlDaemon.start(cycleInterval);
         log.info("Intent Networking Control Application is Started");
     }
 
     @Deactivate
     protected  void deactivate() {
+        if (intentNetworkingControlDaemon != null) {
+            intentNetworkingControlDaemon.stop();
+            intentNetworkingControlDaemon = null;
+        }
+        cfgService.unregisterProperties(getClass(), false);
         registry.unregisterConfigFactory(configFactory);
         log.info("Intent Networking Control Application is Stopped");
     }
 
+    @Modified
+    protected void modified(ComponentContext context) {
+        int previousInterval = cycleInterval;
+        readComponentConfiguration(context);
+
+        if (intentNetworkingControlDaemon == null) {
+            return;
+        }
+        intentNetworkingControlDaemon.setIncrementalFlowFeed(incrementalFlowFeed);
+        intentNetworkingControlDaemon.setFlowFeedPolling(flowFeedPolling);
+        intentNetworkingControlDaemon.configureDetection(packetRateThreshold,
+                                                         byteRateThreshold,
+                                                         rateTimeConstant);
+        intentNetworkingControlDaemon.configureAggregation(minAggregationLength,
+                                                           maxAggregationLength);
+        intentNetworkingControlDaemon.configureIp6Aggregation(minIp6AggregationLength,
+                                                              maxIp6AggregationLength);
+        intentNetworkingControlDaemon.setActivationWorkers(activationWorkers);
+        intentNetworkingControlDaemon.setRedirectIdleTimeout(redirectIdleTimeout);
+        if (cycleInterval != previousInterval) {
+            intentNetworkingControlDaemon.start(cycleInterval);
+        }
+    }
+
+    /**
+     * Extracts properties from the component configuration context.
+     *
+     * @param context the component context
+     */
+
+    private void readComponentConfiguration(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+
+        Integer newCycleInterval = Tools.getIntegerProperty(properties, "cycleInterval");
+        if (newCycleInterval == null || newCycleInterval <= 0) {
+            log.info("Cycle interval is not configured, using current value of {} sec",
+                     cycleInterval);
+        } else {
+            cycleInterval = newCycleInterval;
+            log.info("Configured. Cycle interval is set to {} sec", cycleInterval);
+        }
+
+        Boolean newIncrementalFlowFeed = Tools.isPropertyEnabled(properties, "incrementalFlowFeed");
+        if (newIncrementalFlowFeed != null) {
+            incrementalFlowFeed = newIncrementalFlowFeed;
+            log.info("Configured. Incremental flow feed is {}",
+                     incrementalFlowFeed ? "enabled" : "disabled");
+        }
+
+        Boolean newFlowFeedPolling = Tools.isPropertyEnabled(properties, "flowFeedPolling");
+        if (newFlowFeedPolling != null) {
+            flowFeedPolling = newFlowFeedPolling;
+            log.info("Configured. Flow feed polling is {}",
+                     flowFeedPolling ? "enabled" : "disabled");
+        }
+
+        Integer newPacketRateThreshold = Tools.getIntegerProperty(properties, "packetRateThreshold");
+        if (newPacketRateThreshold != null && newPacketRateThreshold >= 0) {
+            packetRateThreshold = newPacketRateThreshold;
+            log.info("Configured. Packet rate threshold is set to {} pps", packetRateThreshold);
+        }
+
+        Long newByteRateThreshold = Tools.getLongProperty(properties, "byteRateThreshold");
+        if (newByteRateThreshold != null && newByteRateThreshold >= 0) {
+            byteRateThreshold = newByteRateThreshold;
+            log.info("Configured. Byte rate threshold is set to {} Bps", byteRateThreshold);
+        }
+
+        Integer newRateTimeConstant = Tools.getIntegerProperty(properties, "rateTimeConstant");
+        if (newRateTimeConstant != null && newRateTimeConstant > 0) {
+            rateTimeConstant = newRateTimeConstant;
+            log.info("Configured. Rate time constant is set to {} sec", rateTimeConstant);
+        }
+
+        Integer newMinAggregationLength = Tools.getIntegerProperty(properties, "minAggregationLength");
+        Integer newMaxAggregationLength = Tools.getIntegerProperty(properties, "maxAggregationLength");
+        int minLength = newMinAggregationLength == null ? minAggregationLength : newMinAggregationLength;
+        int maxLength = newMaxAggregationLength == null ? maxAggregationLength : newMaxAggregationLength;
+        if (0 <= minLength && minLength <= maxLength && maxLength <= Ip4Prefix.MAX_MASK_LENGTH) {
+            minAggregationLength = minLength;
+            maxAggregationLength = maxLength;
+            log.info("Configured. Aggregation lengths are set to /{} to /{}",
+                     minAggregationLength, maxAggregationLength);
+        } else {
+            log.warn("Invalid aggregation lengths /{} to /{}, keeping /{} to /{}", minLength, maxLength,
+                     minAggregationLength, maxAggregationLength);
+        }
+
+        Integer newMinIp6AggregationLength = Tools.getIntegerProperty(properties, "minIp6AggregationLength");
+        Integer newMaxIp6AggregationLength = Tools.getIntegerProperty(properties, "maxIp6AggregationLength");
+        int minIp6Length = newMinIp6AggregationLength == null
+                ? minIp6AggregationLength : newMinIp6AggregationLength;
+        int maxIp6Length = newMaxIp6AggregationLength == null
+                ? maxIp6AggregationLength : newMaxIp6AggregationLength;
+        if (0 <= minIp6Length && minIp6Length <= maxIp6Length
+                && maxIp6Length <= FlowReport.MAX_IP6_SUBNET_LENGTH) {
+            minIp6AggregationLength = minIp6Length;
+            maxIp6AggregationLength = maxIp6Length;
+            log.info("Configured. IPv6 aggregation lengths are set to /{} to /{}",
+                     minIp6AggregationLength, maxIp6AggregationLength);
+        } else {
+            log.warn("Invalid IPv6 aggregation lengths /{} to /{}, keeping /{} to /{}", minIp6Length,
+                     maxIp6Length, minIp6AggregationLength, maxIp6AggregationLength);
+        }
+
+        Integer newActivationWorkers = Tools.getIntegerProperty(properties, "activationWorkers");
+        if (newActivationWorkers != null && newActivationWorkers > 0) {
+            activationWorkers = newActivationWorkers;
+            log.info("Configured. Activation workers are set to {}", activationWorkers);
+        }
+
+        Integer newRedirectIdleTimeout = Tools.getIntegerProperty(properties, "redirectIdleTimeout");
+        if (newRedirectIdleTimeout != null && newRedirectIdleTimeout >= 0) {
+            redirectIdleTimeout = newRedirectIdleTimeout;
+            log.info("Configured. Redirect idle timeout is set to {} sec", redirectIdleTimeout);
+        }
+    }
+
+    @Override
+    public boolean reportFlows(InputStream stream) throws IOException {
+        IntentNetworkingControlDaemon daemon = intentNetworkingControlDaemon;
+        return daemon != null && daemon.reportFlows(stream);
+    }
+
+    @Override
+    public long originAsn(IpPrefix prefix) {
+        IntentNetworkingControlDaemon daemon = intentNetworkingControlDaemon;
+        return daemon == null ? NO_ASN : daemon.originAsn(prefix);
+    }
+
+    @Override
+    public IntentNetworkingControlConfig.ControllerConfig memberController(long asn) {
+        IntentNetworkingControlDaemon daemon = intentNetworkingControlDaemon;
+        return daemon == null ? null : daemon.memberController(asn);
+    }
+
+    @Override
+    public MemberClient memberClient(long asn) {
+        IntentNetworkingControlDaemon daemon = intentNetworkingControlDaemon;
+        return daemon == null ? null : daemon.memberClient(asn);
+    }
+
+    @Override
+    public MultiPointToSinglePointIntent localIntent(String route) {
+        IntentNetworkingControlDaemon daemon = intentNetworkingControlDaemon;
+        return daemon == null ? null : daemon.localIntent(route);
+    }
+
+    @Override
+    public ActiveRedirect activate(IpPrefix prefix) {
+        IntentNetworkingControlDaemon daemon = intentNetworkingControlDaemon;
+        if (daemon == null) {
+            return null;
+        }
+        daemon.activate(prefix.toString());
+        return daemon.activeRedirect(prefix);
+    }
+
+    @Override
+    public Map<String, LatencyHistogram> redirectLatencies() {
+        IntentNetworkingControlDaemon daemon = intentNetworkingControlDaemon;
+        return daemon == null ? Collections.emptyMap() : daemon.redirectLatencies();
+    }
+
 }
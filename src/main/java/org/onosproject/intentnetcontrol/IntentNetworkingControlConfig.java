@@ -19,9 +19,13 @@ package org.onosproject.intentnetcontrol;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.Sets;
+import org.onlab.packet.IpPrefix;
 import org.onosproject.core.ApplicationId;
 import org.onosproject.net.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
 
@@ -40,6 +44,38 @@ public class IntentNetworkingControlConfig extends Config<ApplicationId> {
     public static final String USERNAME = "username";
     public static final String PASSWORD = "password";
     public static final String SINKPORT = "sinkPort";
+    public static final String LOCAL = "local";
+    public static final String POLICIES = "policies";
+    public static final String PREFIX = "prefix";
+    public static final String POLICY = "policy";
+
+    private static final Logger log = LoggerFactory.getLogger(IntentNetworkingControlConfig.class);
+
+    /**
+     * Checks the policies of the configuration. An invalid policy entry is
+     * logged and ignored, as by {@link #policies()}, rather than rejecting
+     * the controllers along with it; only a policy list that is not an
+     * array is invalid.
+     *
+     * @return true if the configuration is valid
+     */
+
+    @Override
+    public boolean isValid() {
+        JsonNode policyNode = object.get(POLICIES);
+        if (policyNode == null) {
+            return true;
+        }
+        if (!policyNode.isArray()) {
+            return false;
+        }
+        policyNode.forEach(jsonNode -> {
+            if (policyConfig(jsonNode) == null) {
+                log.warn("Ignoring invalid policy entry {}", jsonNode);
+            }
+        });
+        return true;
+    }
 
     /**
      * Gets the set of configured Controllers.
@@ -58,7 +94,7 @@ public class IntentNetworkingControlConfig extends Config<ApplicationId> {
         controllerNode.forEach(jsonNode -> {
             controllerList.add(new ControllerConfig(
                     jsonNode.get(CONTROLLER_TYPE).asText(),
-                    jsonNode.get(ASN).asText(),
+                    jsonNode.get(ASN).asLong(),
                     jsonNode.get(IP).asText(),
                     jsonNode.get(USERNAME).asText(),
                     jsonNode.get(PASSWORD).asText(),
@@ -67,26 +103,74 @@ public class IntentNetworkingControlConfig extends Config<ApplicationId> {
         return controllerList;
     }
 
+    /**
+     * Gets the set of policies configured for route prefixes. Invalid
+     * entries are logged and skipped.
+     *
+     * @return Policies List Configuration
+     */
+
+    public Set<PolicyConfig> policies() {
+        Set<PolicyConfig> policyList = Sets.newHashSet();
+        JsonNode policyNode = object.get(POLICIES);
+
+        if (policyNode == null) {
+            return policyList;
+        }
+
+        policyNode.forEach(jsonNode -> {
+            PolicyConfig policy = policyConfig(jsonNode);
+            if (policy == null) {
+                log.debug("Ignoring invalid policy entry {}", jsonNode);
+            } else {
+                policyList.add(policy);
+            }
+        });
+        return policyList;
+    }
+
+    /**
+     * Parses a policy entry.
+     *
+     * @param jsonNode policy entry
+     *
+     * @return the policy, or null if the prefix or the policy is missing or invalid
+     */
+
+    private static PolicyConfig policyConfig(JsonNode jsonNode) {
+        JsonNode prefix = jsonNode.get(PREFIX);
+        JsonNode policy = jsonNode.get(POLICY);
+        if (prefix == null || policy == null) {
+            return null;
+        }
+        try {
+            return new PolicyConfig(IpPrefix.valueOf(prefix.asText()),
+                                    ControlPolicy.valueOf(policy.asText().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Configuration for controller in ONOS-based intent networking control Application.
      */
 
     public static class ControllerConfig {
         private String controllerType;
-        private String asn;
+        private long asn;
         private String ip;
         private String username;
         private String password;
         private String sinkPort;
 
         public ControllerConfig(String controllerType,
-                                String asn,
+                                long asn,
                                 String ip,
                                 String username,
                                 String password,
                                 String sinkPort) {
             this.controllerType = checkNotNull(controllerType);
-            this.asn = checkNotNull(asn);
+            this.asn = asn;
             this.ip = checkNotNull(ip);
             this.username = checkNotNull(username);
             this.password = checkNotNull(password);
@@ -96,7 +180,10 @@ public class IntentNetworkingControlConfig extends Config<ApplicationId> {
         public String controllerType() {
             return controllerType;
         }
-        public String asn() {
+        public boolean isLocal() {
+            return LOCAL.equals(controllerType);
+        }
+        public long asn() {
             return asn;
         }
         public String ip() {
@@ -116,4 +203,40 @@ public class IntentNetworkingControlConfig extends Config<ApplicationId> {
             return Objects.hash(controllerType, asn, ip, username, password, sinkPort);
         }
     }
+
+    /**
+     * Policy applied to the surging prefixes covered by a route prefix.
+     */
+
+    public static class PolicyConfig {
+        private IpPrefix prefix;
+        private ControlPolicy policy;
+
+        public PolicyConfig(IpPrefix prefix, ControlPolicy policy) {
+            this.prefix = checkNotNull(prefix);
+            this.policy = checkNotNull(policy);
+        }
+
+        public IpPrefix prefix() {
+            return prefix;
+        }
+        public ControlPolicy policy() {
+            return policy;
+        }
+
+        public int hashCode() {
+            return Objects.hash(prefix, policy);
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PolicyConfig)) {
+                return false;
+            }
+            PolicyConfig that = (PolicyConfig) obj;
+            return prefix.equals(that.prefix) && policy == that.policy;
+        }
+    }
 }
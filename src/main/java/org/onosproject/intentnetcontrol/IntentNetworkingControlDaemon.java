@@ -2,37 +2,63 @@ package org.onosproject.intentnetcontrol;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.onlab.packet.Ip4Address;
+import org.onlab.packet.Ip4Prefix;
+import org.onlab.packet.Ip6Address;
+import org.onlab.packet.IpPrefix;
 import org.onosproject.core.ApplicationId;
-import org.onosproject.intentsync.IntentSynchronizationService;
 import org.onosproject.net.ConnectPoint;
 import org.onosproject.net.FilteredConnectPoint;
+import org.onosproject.net.config.NetworkConfigEvent;
+import org.onosproject.net.config.NetworkConfigListener;
 import org.onosproject.net.config.NetworkConfigService;
+import org.onosproject.net.flow.FlowRuleService;
+import org.onosproject.net.flowobjective.FlowObjectiveService;
 import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentEvent;
+import org.onosproject.net.intent.IntentListener;
 import org.onosproject.net.intent.IntentService;
+import org.onosproject.net.intent.IntentState;
 import org.onosproject.net.intent.Key;
 import org.onosproject.net.intent.MultiPointToSinglePointIntent;
 import org.onosproject.net.intent.PointToPointIntent;
+import org.onosproject.net.intent.WorkPartitionEvent;
+import org.onosproject.net.intent.WorkPartitionEventListener;
+import org.onosproject.net.intent.WorkPartitionService;
+import org.onosproject.routeservice.RouteService;
 import org.onosproject.routing.bgp.BgpInfoService;
-import org.onosproject.routing.bgp.BgpRouteEntry;
-import org.onosproject.routing.bgp.BgpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.Authenticator;
 import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.PasswordAuthentication;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static org.onlab.util.Tools.groupedThreads;
 
 /**
  * Execute the Intent Networking Control regularly.
@@ -42,15 +68,18 @@ public class IntentNetworkingControlDaemon {
     private static final String INTENT_API = "/onos/v1/intents/";
     private static final String SDN_IP_APP = "org.onosproject.sdnip";
     private static final int PRIORITY = 300;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String REDIRECT_REQUEST_HEAD =
+            "{\"type\":\"PointToPointIntent\",\"appId\":"
+                    + TextNode.valueOf(IntentNetworkingControl.INTENT_NETWORKING_CONTROL_APP)
+                    + ",\"priority\":\"" + PRIORITY + "\"";
     Class<IntentNetworkingControlConfig> configClass = IntentNetworkingControlConfig.class;
-    private static String sinkPort = "";
-    private static final String LOCAL_ASN = "65011";
 
     private static final Logger log = LoggerFactory.getLogger(
             IntentNetworkingControlDaemon.class);
 
     private final IntentService intentService;
-    private final IntentSynchronizationService intentSynchronizer;
+    private final WorkPartitionService workPartitionService;
     private final NetworkConfigService configService;
     private final BgpInfoService bgpInfoService;
 
@@ -58,633 +87,1461 @@ public class IntentNetworkingControlDaemon {
 
     private static final String VISIBILITY_SERVER = "210.125.84.140";
     private static final String FLOW_API = "/api/onosbuild2017/";
-    private static final Integer THRESHOLD = 100000;
-
+    private static final int MAX_TRACKED_SUBNETS = 65536;
+    private static final int TRACKED_SUBNET_IDLE_CYCLES = 6;
+    private static final int MAX_PENDING_REPORTS = 64;
+    private static final String FLOW_API_SINCE = "since";
+    private static final int FLOW_API_TIMEOUT = 5000;
+    private static final int MAX_QUEUED_ACTIVATIONS = 256;
+    private static final long INTENT_INSTALL_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+    private static final int REDIRECT_TIMER_SLOTS = 512;
+    private static final long REDIRECT_TIMER_TICK = TimeUnit.SECONDS.toMillis(1);
+    private static final long REDIRECT_WITHDRAWAL_RETRY = TimeUnit.SECONDS.toMillis(30);
+    private static final String BLOCK_KEY_PREFIX = "block:";
+
+    // Blocks are adjacent numbers, and the work partitions take the hash modulo their count
+    private static final HashFunction BLOCK_HASH = Hashing.murmur3_128();
+    private static final Function<Long, Long> PARTITION_HASHER = block -> BLOCK_HASH.hashLong(block).asLong();
+
+    private volatile ScheduledExecutorService controlExecutor;
+    private ScheduledFuture<?> controlCycle;
+    private volatile long cycleInterval;
+    private volatile long lastCycleDuration;
+
+    private final FlowFeedCursor flowFeedCursor = new FlowFeedCursor();
+    private volatile boolean incrementalFlowFeed;
+    private volatile boolean flowFeedPolling = true;
+
+    private volatile int minAggregationLength = IntentNetworkingControl.DEFAULT_MIN_AGGREGATION_LENGTH;
+    private volatile int maxAggregationLength = IntentNetworkingControl.DEFAULT_MAX_AGGREGATION_LENGTH;
+    private int detectedSubnetLength = IntentNetworkingControl.DEFAULT_MAX_AGGREGATION_LENGTH;
+    private volatile int minIp6AggregationLength = IntentNetworkingControl.DEFAULT_MIN_IP6_AGGREGATION_LENGTH;
+    private volatile int maxIp6AggregationLength = IntentNetworkingControl.DEFAULT_MAX_IP6_AGGREGATION_LENGTH;
+    private int detectedIp6SubnetLength = IntentNetworkingControl.DEFAULT_MAX_IP6_AGGREGATION_LENGTH;
+
+    private final RateDetector rateDetector = newRateDetector();
+
+    // IPv6 subnet keys share the value space of IPv4 keys, so they are tracked apart
+    private final RateDetector ip6RateDetector = newRateDetector();
+
+    // Pushed reports are increments over their own time base, so they are tracked apart from the polled feed
+    private final RateDetector pushRateDetector = newRateDetector();
+    private final RateDetector pushIp6RateDetector = newRateDetector();
+
+    private final FlowReportQueue pendingReports =
+            new FlowReportQueue(MAX_PENDING_REPORTS,
+                                report -> detect(report, pushRateDetector, pushIp6RateDetector));
+
+    private volatile ActivationPipeline activationPipeline;
+    private volatile int activationWorkers = IntentNetworkingControl.DEFAULT_ACTIVATION_WORKERS;
+    private volatile ActivationPipeline.Batch lastActivations;
+    private final IntentSubmitter intentSubmitter;
+    private volatile CompletableFuture<Void> lastRedirects = CompletableFuture.completedFuture(null);
+
+    private final RouteIndex routeIndex;
+    private volatile ControllerTable controllerTable = ControllerTable.EMPTY;
+    private final InternalConfigListener configListener = new InternalConfigListener();
+    private final RedirectTable redirectTable = new RedirectTable();
+    private final TimingWheel<IpPrefix> redirectTimers =
+            new TimingWheel<>(REDIRECT_TIMER_SLOTS, REDIRECT_TIMER_TICK, System.currentTimeMillis());
+    private volatile long redirectIdleTimeout =
+            TimeUnit.SECONDS.toMillis(IntentNetworkingControl.DEFAULT_REDIRECT_IDLE_TIMEOUT);
+    private final InternalIntentListener intentListener = new InternalIntentListener();
+    private final LocalIntentIndex localIntents;
+    private final DropObjectives dropObjectives;
+    private final RedirectTemplates redirectTemplates;
+    private volatile PolicyTable policyTable = PolicyTable.EMPTY;
+    private final InternalPartitionListener partitionListener = new InternalPartitionListener();
+    private final AtomicBoolean adoptionPending = new AtomicBoolean();
+    private boolean adoptionDeferred;
 
     /**
      * Creates a Inter Networking Control Daemon.
      *
      * @param appId              the application ID
      * @param intentService      the intent service
-     * @param intentSynchronizer the intent synchronizer
+     * @param workPartitionService the work partition service
      * @param configService      the network config service
      * @param bgpInfoService     the BGP information service
+     * @param routeService       the route service
+     * @param flowObjectiveService the flow objective service
+     * @param flowRuleService    the flow rule service
      */
     public IntentNetworkingControlDaemon (ApplicationId appId,
                                    IntentService intentService,
-                                   IntentSynchronizationService intentSynchronizer,
+                                   WorkPartitionService workPartitionService,
                                    NetworkConfigService configService,
-                                   BgpInfoService bgpInfoService) {
+                                   BgpInfoService bgpInfoService,
+                                   RouteService routeService,
+                                   FlowObjectiveService flowObjectiveService,
+                                   FlowRuleService flowRuleService) {
         this.appId = appId;
         this.intentService = intentService;
-        this.intentSynchronizer = intentSynchronizer;
+        this.workPartitionService = workPartitionService;
         this.configService = configService;
         this.bgpInfoService = bgpInfoService;
+        this.routeIndex = new RouteIndex(bgpInfoService, routeService);
+        this.localIntents = new LocalIntentIndex(intentService, SDN_IP_APP);
+        this.intentSubmitter = new IntentSubmitter(intentService);
+        this.redirectTemplates = new RedirectTemplates(appId, PRIORITY);
+        this.dropObjectives = new DropObjectives(flowObjectiveService, flowRuleService, appId, PRIORITY);
     }
 
     /**
-     * Activate the networking control as daemon.
+     * Starts the networking control as a periodic task on a dedicated
+     * executor. Calling it again reschedules the task with the new interval.
+     *
+     * @param interval interval in seconds between two control cycles
      */
 
-    public void daemonize() {
+    public synchronized void start(long interval) {
+        if (controlExecutor == null) {
+            controlExecutor = newSingleThreadScheduledExecutor(
+                    groupedThreads("onos/intentnetcontrol", "control-%d", log));
+            activationPipeline = new ActivationPipeline(activationWorkers, MAX_QUEUED_ACTIVATIONS);
+            intentService.addListener(intentListener);
+            configService.addListener(configListener);
+            workPartitionService.addListener(partitionListener);
+            localIntents.load();
+            loadControllers();
+            routeIndex.activate();
+            scheduleAdoption();
+        }
+        if (controlCycle != null) {
+            controlCycle.cancel(false);
+        }
+        cycleInterval = interval;
+        controlCycle = controlExecutor.scheduleWithFixedDelay(this::runCycle, 0,
+                                                              interval, TimeUnit.SECONDS);
+        log.info("Intent networking control scheduled every {} sec", interval);
+    }
 
-        while (true) {
-            try {
-                check();
-                Thread.sleep(10000);
+    /**
+     * Stops the periodic networking control and releases its executor.
+     */
 
-            } catch(InterruptedException e) {}
+    public synchronized void stop() {
+        if (controlCycle != null) {
+            controlCycle.cancel(true);
+            controlCycle = null;
+        }
+        if (controlExecutor != null) {
+            intentService.removeListener(intentListener);
+            configService.removeListener(configListener);
+            workPartitionService.removeListener(partitionListener);
+            routeIndex.deactivate();
+            localIntents.clear();
+            intentSubmitter.cancel();
+            controlExecutor.shutdownNow();
+            controlExecutor = null;
+            activationPipeline.shutdown();
+            activationPipeline = null;
+            dropObjectives.removeAll();
         }
+        redirectTable.clear();
+        redirectTimers.clear();
     }
 
     /**
-     * Activate the networking control.
+     * Gets the interval between two control cycles.
+     *
+     * @return cycle interval in seconds
      */
 
-    public void check() {
+    public long cycleInterval() {
+        return cycleInterval;
+    }
 
-        String listFlows = "";
-        Integer packetCount = 0;
-        String sourceAddress = "";
+    /**
+     * Gets the duration of the last completed control cycle.
+     *
+     * @return duration of the last cycle in milliseconds
+     */
 
-        {
-            try {
+    public long lastCycleDuration() {
+        return lastCycleDuration;
+    }
 
-                listFlows = "{\"FlowArray\" : " + checkFlow() + "}";
+    /**
+     * Gets the outcome of the local activations of the last control cycle
+     * that had surging subnets of the local AS.
+     *
+     * @return last completed batch of activations, or null if there is none
+     */
 
-            }catch (IOException ie){
-                ie.printStackTrace();
-            }
-        }
+    ActivationPipeline.Batch lastActivations() {
+        return lastActivations;
+    }
 
-        ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * Gets the completion of the redirect intents submitted by the last
+     * control cycle that had surging subnets.
+     *
+     * @return future completing once every redirect intent of the cycle is
+     * INSTALLED, FAILED or withdrawn
+     */
 
-        try {
+    public CompletableFuture<Void> lastRedirects() {
+        return lastRedirects;
+    }
 
-            JsonNode flowArray = objectMapper.readTree(listFlows).get("FlowArray");
+    /**
+     * Gets the completion of a redirect intent submitted by the daemon.
+     *
+     * @param key key of the redirect intent
+     *
+     * @return future completing with the state the intent reaches, or null
+     * if the intent is not pending
+     */
 
-            for (JsonNode flow : flowArray) {
-                log.info (flow.toString());
-                sourceAddress = flow.get("source_address").asText();
-                packetCount = flow.get("number_of_packet").asInt();
+    public CompletableFuture<IntentState> redirectCompletion(Key key) {
+        return intentSubmitter.completion(key);
+    }
 
-                //print (sourceAddress + ":" + packetCount.toString());
+    /**
+     * Gets the latency histograms of the local redirect intents.
+     *
+     * @return histograms by stage: decision to submission, submission to
+     * installation and decision to installation
+     */
 
-                if (packetCount >= THRESHOLD) {
-                    String[] IP = sourceAddress.split("\\.");
-                    String subnetAddress = IP[0] + "." + IP[1] + "." + IP[2] + ".0/24";
-                    log.info ("Activate rule for route : %s", subnetAddress);
-                    activate(subnetAddress);
-                }
-            }
+    public Map<String, LatencyHistogram> redirectLatencies() {
+        Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+        latencies.put(IntentNetworkingControlService.LATENCY_DECISION_TO_SUBMIT, intentSubmitter.submitLatency());
+        latencies.put(IntentNetworkingControlService.LATENCY_SUBMIT_TO_INSTALL, intentSubmitter.installLatency());
+        latencies.put(IntentNetworkingControlService.LATENCY_DECISION_TO_INSTALL, intentSubmitter.totalLatency());
+        return latencies;
+    }
 
-        } catch (IOException ie) {
-            ie.printStackTrace();
-        }
+    /**
+     * Gets the origin AS number of an announced route prefix.
+     *
+     * @param prefix route prefix
+     *
+     * @return the origin AS number, or {@link RouteIndex#NO_ASN} if the prefix is not announced
+     */
+
+    public long originAsn(IpPrefix prefix) {
+        return routeIndex.originAsn(prefix);
     }
 
-    private String checkFlow() throws IOException {
+    /**
+     * Gets the member controller responsible for an AS.
+     *
+     * @param asn AS number
+     *
+     * @return the member controller, or null if none is configured
+     */
 
-        String flowAPIURL = "http://" + VISIBILITY_SERVER + ":8000" + FLOW_API;
-        URL url = null;
-        String flows = "";
+    public IntentNetworkingControlConfig.ControllerConfig memberController(long asn) {
+        return controllerTable.get(asn);
+    }
 
-        try {
-            url = new URL(flowAPIURL);
+    /**
+     * Gets the multi-point-to-single-point intent installed locally by
+     * SDN-IP for a route prefix, from the index of its intent keys.
+     *
+     * @param route route prefix
+     *
+     * @return the SDN-IP intent, or null if none is installed
+     */
+
+    public MultiPointToSinglePointIntent localIntent(String route) {
+        return localIntents.get(route);
+    }
+
+    /**
+     * Gets the redirects currently installed by the daemon.
+     *
+     * @return active redirects
+     */
+
+    public Collection<ActiveRedirect> activeRedirects() {
+        return redirectTable.redirects();
+    }
+
+    /**
+     * Gets the redirect currently installed by the daemon for a route prefix.
+     *
+     * @param prefix route prefix
+     *
+     * @return the active redirect, or null if the prefix is not redirected
+     */
+
+    public ActiveRedirect activeRedirect(IpPrefix prefix) {
+        return redirectTable.get(prefix);
+    }
+
+    /**
+     * Enables or disables incremental flow ingestion. Disabling it drops the
+     * cursors, so enabling it again starts with a full fetch.
+     *
+     * @param incremental true to request only new flow records each cycle
+     */
+
+    public void setIncrementalFlowFeed(boolean incremental) {
+        if (!incremental) {
+            flowFeedCursor.resetAll();
         }
-        catch (MalformedURLException e) {
-            e.printStackTrace();
+        incrementalFlowFeed = incremental;
+    }
+
+    /**
+     * Enables or disables polling of the visibility flow feed. Polling can be
+     * turned off when the visibility server pushes its flow reports instead.
+     *
+     * @param polling true to poll the flow feed every cycle
+     */
+
+    public void setFlowFeedPolling(boolean polling) {
+        flowFeedPolling = polling;
+    }
+
+    /**
+     * Sets the number of workers activating surging prefixes in parallel.
+     *
+     * @param workers number of activation workers
+     */
+
+    public synchronized void setActivationWorkers(int workers) {
+        checkArgument(workers > 0, "Number of activation workers must be positive");
+        activationWorkers = workers;
+        if (activationPipeline != null) {
+            activationPipeline.resize(workers);
         }
+    }
 
-        HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
-        int responseCode = urlConnection.getResponseCode();
-        if (responseCode == 200) {
-            InputStream is = urlConnection.getInputStream();
-            BufferedReader in = new BufferedReader(new InputStreamReader(is));
-            flows = in.readLine();
-            log.info ("Flows Exist");
+    /**
+     * Sets the idle timeout of the redirects. A redirect is withdrawn once
+     * its prefix has not been detected as surging for that long.
+     *
+     * @param seconds idle timeout in seconds, 0 to keep the redirects forever
+     */
+
+    public void setRedirectIdleTimeout(int seconds) {
+        checkArgument(seconds >= 0, "Redirect idle timeout must not be negative");
+        long timeout = TimeUnit.SECONDS.toMillis(seconds);
+        if (timeout == redirectIdleTimeout) {
+            return;
         }
-        else {
-            log.info("Flows Not Exist");
+        redirectIdleTimeout = timeout;
+        redirectTimers.clear();
+        long now = System.currentTimeMillis();
+        for (ActiveRedirect redirect : redirectTable.redirects()) {
+            refreshRedirect(redirect.prefix(), now);
+        }
+    }
+
+    /**
+     * Configures the range of prefix lengths surging subnets are resolved to.
+     * Flows are aggregated into subnets of the maximum length, and each surging
+     * subnet is redirected through the longest announced prefix covering it
+     * that is not shorter than the minimum length.
+     *
+     * @param minLength shortest prefix length a subnet may be resolved to
+     * @param maxLength longest prefix length a subnet may be resolved to
+     */
+
+    public void configureAggregation(int minLength, int maxLength) {
+        checkArgument(0 <= minLength && minLength <= maxLength && maxLength <= Ip4Prefix.MAX_MASK_LENGTH,
+                      "Invalid aggregation lengths %s-%s", minLength, maxLength);
+        minAggregationLength = minLength;
+        maxAggregationLength = maxLength;
+    }
+
+    /**
+     * Configures the range of prefix lengths surging IPv6 subnets are
+     * resolved to, as for IPv4. IPv6 flows are aggregated into subnets of
+     * at most /64, the length of an IPv6 subnet.
+     *
+     * @param minLength shortest prefix length a subnet may be resolved to
+     * @param maxLength longest prefix length a subnet may be resolved to
+     */
+
+    public void configureIp6Aggregation(int minLength, int maxLength) {
+        checkArgument(0 <= minLength && minLength <= maxLength
+                              && maxLength <= FlowReport.MAX_IP6_SUBNET_LENGTH,
+                      "Invalid IPv6 aggregation lengths %s-%s", minLength, maxLength);
+        minIp6AggregationLength = minLength;
+        maxIp6AggregationLength = maxLength;
+    }
+
+    /**
+     * Configures the rate-based detection of surging subnets.
+     *
+     * @param packetRateThreshold packet rate threshold in packets per second, 0 to disable
+     * @param byteRateThreshold   byte rate threshold in bytes per second, 0 to disable
+     * @param timeConstant        time constant of the rate moving averages in seconds
+     */
+
+    public void configureDetection(double packetRateThreshold,
+                                   double byteRateThreshold,
+                                   double timeConstant) {
+        rateDetector.configure(packetRateThreshold, byteRateThreshold, timeConstant);
+        ip6RateDetector.configure(packetRateThreshold, byteRateThreshold, timeConstant);
+        pushRateDetector.configure(packetRateThreshold, byteRateThreshold, timeConstant);
+        pushIp6RateDetector.configure(packetRateThreshold, byteRateThreshold, timeConstant);
+    }
+
+    private static RateDetector newRateDetector() {
+        return new RateDetector(MAX_TRACKED_SUBNETS,
+                                IntentNetworkingControl.DEFAULT_PACKET_RATE_THRESHOLD,
+                                IntentNetworkingControl.DEFAULT_BYTE_RATE_THRESHOLD,
+                                IntentNetworkingControl.DEFAULT_RATE_TIME_CONSTANT);
+    }
+
+    /**
+     * Runs one control cycle. Exceptions are caught here, otherwise the
+     * executor would silently suppress all subsequent cycles.
+     */
+
+    private void runCycle() {
+        long start = System.nanoTime();
+        try {
+            int expired = intentSubmitter.expire(System.currentTimeMillis() - INTENT_INSTALL_TIMEOUT);
+            if (expired > 0) {
+                log.warn("{} redirect intents did not complete within {} ms", expired, INTENT_INSTALL_TIMEOUT);
+            }
+            expireRedirects(System.currentTimeMillis());
+            routeIndex.refresh();
+            if (adoptionDeferred && !routeIndex.isEmpty()) {
+                adoptRedirects();
+            }
+            check();
+        } catch (Exception e) {
+            log.warn("Intent networking control cycle failed", e);
+        } finally {
+            lastCycleDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
         }
-        return flows;
     }
 
     /**
      * Activate the networking control.
      */
 
-    public void activate(String route) {
+    public void check() {
 
-        String asn = "";
+        if (!flowFeedPolling) {
+            return;
+        }
 
-        if (routeToAsn(route) == null) {
-            log.info("No originating AS Number for this prefix %s", route);
+        FlowReport report;
+        try {
+            report = checkFlow();
+            log.debug("Parsed {} flows from {} subnets", report.flows(), report.subnets());
+        } catch (IOException ie) {
+            // A partial report would skew the counters, and a partial delta is fetched again
+            log.warn("Unable to read flows from visibility server: {}", ie.getMessage());
+            return;
         }
 
-        if (routeToAsn(route).equals(checkLocalAsn(routeToAsn(route)))) {
+        detect(report, rateDetector, ip6RateDetector);
+    }
 
-            log.info("This prefix %s is originating from Local AS Number (AS %s)", route, LOCAL_ASN);
+    /**
+     * Queues a batch of flow records pushed by the visibility server and
+     * schedules its detection on the control executor. A pushed batch holds
+     * the flow records since the previous push, so its counters are fed to
+     * the detectors of the pushed reports as increments.
+     *
+     * @param stream flow records in the format of the visibility flow feed
+     *
+     * @return true if the report was queued, false if the queue is full
+     */
 
-            if (checkLocalIntent(route) == null) {
-                log.info("No local intent is installed for this prefix %s", route);
-            } else {
-                log.info("Local intent is installed for this prefix %s", route);
-                modifyIntent(route);
+    public boolean reportFlows(InputStream stream) throws IOException {
+
+        FlowReport report = newFlowReport(true);
+        FlowFeedParser.parse(stream, report::add);
+
+        if (!pendingReports.offer(report, controlExecutor)) {
+            log.warn("Dropped flow report of {} flows, {} reports pending",
+                     report.flows(), pendingReports.size());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Feeds the per-subnet counters of a flow report to the rate detectors
+     * of its source and activates the control for the announced prefix
+     * covering each surging subnet.
+     *
+     * @param report      flow report
+     * @param ip4Detector rate detector of the IPv4 subnets of the source
+     * @param ip6Detector rate detector of the IPv6 subnets of the source
+     */
+
+    private void detect(FlowReport report, RateDetector ip4Detector, RateDetector ip6Detector) {
+        long now = report.timestamp();
+        if (report.subnetLength() != detectedSubnetLength) {
+            // Subnet keys of another length cannot be compared with the tracked ones
+            rateDetector.clear();
+            pushRateDetector.clear();
+            detectedSubnetLength = report.subnetLength();
+        }
+        if (report.ip6SubnetLength() != detectedIp6SubnetLength) {
+            ip6RateDetector.clear();
+            pushIp6RateDetector.clear();
+            detectedIp6SubnetLength = report.ip6SubnetLength();
+        }
+
+        // Only the subnets of the blocks owned by this instance are tracked
+        Map<Long, Boolean> ownedBlocks = new HashMap<>();
+        List<Long> surgingSubnets = new ArrayList<>();
+        boolean incremental = report.isIncremental();
+        report.forEach((subnet, packetCount, byteCount) -> {
+            if (ownsBlock(ip4Block(subnet), ownedBlocks)
+                    && sample(ip4Detector, incremental, subnet, packetCount, byteCount, now)) {
+                surgingSubnets.add(subnet);
+            }
+        });
+        Map<Long, Boolean> ownedIp6Blocks = new HashMap<>();
+        List<Long> surgingIp6Subnets = new ArrayList<>();
+        report.forEachIp6((subnet, packetCount, byteCount) -> {
+            if (ownsBlock(ip6Block(subnet), ownedIp6Blocks)
+                    && sample(ip6Detector, incremental, subnet, packetCount, byteCount, now)) {
+                surgingIp6Subnets.add(subnet);
             }
+        });
+        long idleSince = now - TimeUnit.SECONDS.toMillis(TRACKED_SUBNET_IDLE_CYCLES * cycleInterval);
+        ip4Detector.expire(idleSince);
+        ip6Detector.expire(idleSince);
 
-        } else {
+        if (surgingSubnets.isEmpty() && surgingIp6Subnets.isEmpty()) {
+            return;
+        }
+
+        Set<IpPrefix> activatedPrefixes = new HashSet<>();
+        List<ResolvedPrefix> localActivations = new ArrayList<>();
+        List<ResolvedPrefix> remoteActivations = new ArrayList<>();
+
+        long[] subnets = surgingSubnets.stream().mapToLong(Long::longValue).sorted().toArray();
+        ResolvedPrefix[] resolvedPrefixes = resolveSubnets(subnets, report.subnetLength());
+        for (int i = 0; i < subnets.length; i++) {
+            ResolvedPrefix resolved = resolvedPrefixes[i];
+            if (resolved == null) {
+                log.debug("No announced prefix covers surging subnet {}/{}",
+                          Ip4Address.valueOf((int) subnets[i]), report.subnetLength());
+            } else if (redirectTable.isRedirected(resolved.prefix())) {
+                refreshRedirect(resolved.prefix(), now);
+            } else if (activatedPrefixes.add(resolved.prefix())) {
+                log.info("Activate rule for route : {} ({} pps, {} Bps)", resolved.prefix(),
+                         (long) ip4Detector.packetRate(subnets[i]), (long) ip4Detector.byteRate(subnets[i]));
+                (isRemote(resolved) ? remoteActivations : localActivations).add(resolved);
+            }
+        }
 
-            log.info("This prefix %s is originating from Remote AS Number %s", route, routeToAsn(route));
+        long[] ip6Subnets = surgingIp6Subnets.stream().mapToLong(Long::longValue).toArray();
+        sortUnsigned(ip6Subnets);
+        ResolvedPrefix[] resolvedIp6Prefixes = resolveIp6Subnets(ip6Subnets, report.ip6SubnetLength());
+        for (int i = 0; i < ip6Subnets.length; i++) {
+            ResolvedPrefix resolved = resolvedIp6Prefixes[i];
+            if (resolved == null) {
+                log.debug("No announced prefix covers surging subnet {}/{}",
+                          ip6Address(ip6Subnets[i]), report.ip6SubnetLength());
+            } else if (redirectTable.isRedirected(resolved.prefix())) {
+                refreshRedirect(resolved.prefix(), now);
+            } else if (activatedPrefixes.add(resolved.prefix())) {
+                log.info("Activate rule for route : {} ({} pps, {} Bps)", resolved.prefix(),
+                         (long) ip6Detector.packetRate(ip6Subnets[i]),
+                         (long) ip6Detector.byteRate(ip6Subnets[i]));
+                (isRemote(resolved) ? remoteActivations : localActivations).add(resolved);
+            }
+        }
 
-            String matchRemoteIntent = checkRemoteIntent(routeToAsn(route), route);
-            log.info(matchRemoteIntent);
+        dispatchActivations(localActivations, remoteActivations);
+    }
 
-            if (matchRemoteIntent == null) {
-                log.info("No remote intent is installed for this prefix %s", route);
-            } else {
-                log.info("remote intent is installed for this prefix %s", route);
-                modifyRemoteIntent(routeToAsn(route), matchRemoteIntent);
+    private static boolean isRemote(ResolvedPrefix resolved) {
+        return resolved.controller() != null && !resolved.controller().isLocal();
+    }
+
+    /**
+     * Dispatches the activations of a control cycle. The local activations
+     * form a batch of their own, sealed before any remote activation is
+     * queued, so that their redirect intents are submitted as soon as they
+     * are done rather than after the REST calls to the member controllers.
+     *
+     * @param localActivations  prefixes originating from the local AS, or not resolved to a controller
+     * @param remoteActivations prefixes originating from the AS of a member controller
+     */
+
+    private void dispatchActivations(List<ResolvedPrefix> localActivations,
+                                     List<ResolvedPrefix> remoteActivations) {
+        ActivationPipeline pipeline = activationPipeline;
+        IntentSubmitter.Batch intents = intentSubmitter.newBatch();
+        if (pipeline == null) {
+            localActivations.forEach(resolved -> activate(resolved, intents));
+            lastRedirects = intents.submit();
+            remoteActivations.forEach(resolved -> activate(resolved, intents));
+            return;
+        }
+
+        if (!localActivations.isEmpty()) {
+            ActivationPipeline.Batch localBatch =
+                    pipeline.newBatch(activations -> activationsCompleted(activations, intents));
+            for (ResolvedPrefix resolved : localActivations) {
+                localBatch.submit(resolved.prefix(), () -> activate(resolved, intents));
             }
+            localBatch.seal();
+        }
 
+        if (!remoteActivations.isEmpty()) {
+            ActivationPipeline.Batch remoteBatch =
+                    pipeline.newBatch(activations -> log.info("Remote activations of the cycle completed: {}",
+                                                              activations));
+            for (ResolvedPrefix resolved : remoteActivations) {
+                remoteBatch.submit(resolved.prefix(), () -> activate(resolved, intents));
+            }
+            remoteBatch.seal();
         }
+    }
 
+    private static boolean sample(RateDetector detector, boolean incremental,
+                                  long subnet, long packetCount, long byteCount, long now) {
+        return incremental ? detector.increment(subnet, packetCount, byteCount, now)
+                : detector.update(subnet, packetCount, byteCount, now);
     }
 
     /**
-     * Gets specific installed intents for specific route prefix.
+     * Resolves a batch of IPv4 subnets to the announced prefixes covering
+     * them, with the origin AS number and member controller of each. The
+     * subnets are joined with the route index in one pass, so the cost is
+     * linear in the number of subnets and of index nodes visited rather than
+     * one full lookup per subnet.
      *
-     * @param route route prefix to be checked
+     * @param subnets      subnet addresses as unsigned values, sorted in ascending order
+     * @param subnetLength prefix length of the subnets
      *
-     * @return the multi-point-to-single-point intent of SDN-IP.
+     * @return the resolution of each subnet at the same index, null for the
+     * subnets not covered by an announced prefix within the aggregation lengths
      */
 
-    private Intent checkLocalIntent(String route) {
+    public ResolvedPrefix[] resolveSubnets(long[] subnets, int subnetLength) {
+        int[] addresses = new int[subnets.length];
+        for (int i = 0; i < subnets.length; i++) {
+            addresses[i] = (int) subnets[i];
+        }
+        ResolvedPrefix[] resolved = new ResolvedPrefix[subnets.length];
+        routeIndex.refresh();
+        ControllerTable controllers = controllerTable;
+        routeIndex.longestMatches(addresses, Math.min(subnetLength, maxAggregationLength), minAggregationLength,
+                                  (i, prefix, asn) -> resolved[i] = new ResolvedPrefix(prefix, asn,
+                                                                                       controllers.get(asn)));
+        return resolved;
+    }
 
+    /**
+     * Resolves a batch of IPv6 subnets of at most /64 to the announced
+     * prefixes covering them, as for IPv4 subnets.
+     *
+     * @param subnets      high 64 bits of the subnets, sorted in unsigned order
+     * @param subnetLength prefix length of the subnets
+     *
+     * @return the resolution of each subnet at the same index, null for the
+     * subnets not covered by an announced prefix within the aggregation lengths
+     */
 
-        Intent intentRoute = null;
-        for (Intent intent : intentService.getIntents()) {
-            /**
-             * Only get intent MultiPointToSinglePoint type
-             */
+    public ResolvedPrefix[] resolveIp6Subnets(long[] subnets, int subnetLength) {
+        ResolvedPrefix[] resolved = new ResolvedPrefix[subnets.length];
+        routeIndex.refresh();
+        ControllerTable controllers = controllerTable;
+        routeIndex.longestMatches(subnets, Math.min(subnetLength, maxIp6AggregationLength),
+                                  minIp6AggregationLength,
+                                  (i, prefix, asn) -> resolved[i] = new ResolvedPrefix(prefix, asn,
+                                                                                       controllers.get(asn)));
+        return resolved;
+    }
 
-            if (intent instanceof MultiPointToSinglePointIntent) {
-                MultiPointToSinglePointIntent pi = (MultiPointToSinglePointIntent) intent;
-                String key = String.format("%s", pi.key());
-                if (key.equals(route)) {
-                    //print("%s", pi);
-                    intentRoute = pi;
-                    break;
-                }
-            }
+    /**
+     * Gets the partitioning block of an IPv4 subnet, its block of the
+     * shortest aggregation length. A route prefix a subnet may be resolved
+     * to lies within the block of the subnet, so all the subnets of a
+     * prefix, and the prefix itself, are owned by the same instance.
+     *
+     * @param subnet subnet address as an unsigned value
+     *
+     * @return the block of the subnet
+     */
+
+    private long ip4Block(long subnet) {
+        return (subnet & 0xffffffffL) >>> (Ip4Prefix.MAX_MASK_LENGTH - minAggregationLength);
+    }
+
+    /**
+     * Gets the partitioning block of an IPv6 subnet, as for IPv4.
+     *
+     * @param subnet high 64 bits of the subnet
+     *
+     * @return the block of the subnet
+     */
+
+    private long ip6Block(long subnet) {
+        int length = minIp6AggregationLength;
+        return length == 0 ? 0 : subnet >>> (FlowReport.MAX_IP6_SUBNET_LENGTH - length);
+    }
+
+    private boolean ownsBlock(long block, Map<Long, Boolean> ownedBlocks) {
+        return ownedBlocks.computeIfAbsent(block, b -> workPartitionService.isMine(b, PARTITION_HASHER));
+    }
+
+    /**
+     * Checks whether a route prefix belongs to the share of this instance.
+     *
+     * @param prefix route prefix
+     *
+     * @return true if this instance owns the prefix
+     */
+
+    private boolean isMine(IpPrefix prefix) {
+        long block = prefix.isIp4() ? ip4Block(prefix.address().getIp4Address().toInt())
+                : ip6Block(RouteIndex.high(prefix.address().getIp6Address()));
+        return workPartitionService.isMine(block, PARTITION_HASHER);
+    }
+
+    private static void sortUnsigned(long[] values) {
+        // Flipping the sign bit maps the unsigned order onto the signed order
+        for (int i = 0; i < values.length; i++) {
+            values[i] ^= Long.MIN_VALUE;
+        }
+        Arrays.sort(values);
+        for (int i = 0; i < values.length; i++) {
+            values[i] ^= Long.MIN_VALUE;
         }
-        return intentRoute;
     }
 
     /**
-     * Gets specific last/originating AS Number for specific route prefix.
+     * Keeps the redirect of a prefix in place for another idle timeout.
      *
-     * @param route route prefix to be checked
+     * @param prefix redirected route prefix
+     * @param now    current time in milliseconds
+     */
+
+    private void refreshRedirect(IpPrefix prefix, long now) {
+        long timeout = redirectIdleTimeout;
+        if (timeout > 0) {
+            redirectTimers.schedule(prefix, now + timeout);
+        }
+    }
+
+    private void recordRedirect(ActiveRedirect redirect) {
+        redirectTable.add(redirect);
+        refreshRedirect(redirect.prefix(), redirect.installedAt());
+    }
+
+    /**
+     * Withdraws the redirects that stayed idle past their timeout. Drop rules
+     * are removed, the local redirect intents are withdrawn together through the intent service,
+     * unless another instance took the prefix over, the remote ones through the intent REST API of their
+     * member controller, on the activation workers so that they are ordered
+     * with any new activation of the same prefix.
+     * <p>
+     * A redirect stays in the table until its withdrawal is confirmed, by
+     * the intent event of a local intent or the answer of the member
+     * controller, and its timer is re-armed meanwhile, so a withdrawal that
+     * fails or cannot be dispatched is retried.
+     * </p>
      *
-     * @return the last/origination AS Number.
+     * @param now current time in milliseconds
      */
 
-    private String routeToAsn(String route) {
+    private void expireRedirects(long now) {
+        List<IpPrefix> expired = redirectTimers.advance(now);
+        if (expired.isEmpty()) {
+            return;
+        }
 
-        String lastAsn = "";
-        BgpSession foundBgpSession = null;
-        for (BgpSession bgpSession : bgpInfoService.getBgpSessions()) {
-            foundBgpSession = bgpSession;
+        List<Intent> localRedirects = new ArrayList<>();
+        List<ActiveRedirect> remoteRedirects = new ArrayList<>();
+        for (IpPrefix prefix : expired) {
+            ActiveRedirect redirect = redirectTable.get(prefix);
+            if (redirect == null) {
+                continue;
+            }
+            if (!redirect.controller().isLocal()) {
+                redirectTimers.schedule(prefix, now + REDIRECT_WITHDRAWAL_RETRY);
+                remoteRedirects.add(redirect);
+                continue;
+            }
+            if (redirect.policy() == ControlPolicy.BLOCK) {
+                dropObjectives.remove(prefix);
+                redirectTable.remove(prefix);
+                continue;
+            }
+            Intent intent = isMine(prefix) ? intentService.getIntent(redirect.intentKey()) : null;
+            if (intent == null) {
+                // Already gone, or adopted by the instance now owning the prefix
+                redirectTable.remove(prefix);
+                continue;
+            }
+            redirectTimers.schedule(prefix, now + REDIRECT_WITHDRAWAL_RETRY);
+            localRedirects.add(intent);
         }
-        /**
-         * Get the ASPath for specific BGP Peering
-         */
 
-        Collection<BgpRouteEntry> routes4 = foundBgpSession.getBgpRibIn4();
-        for (BgpRouteEntry route4 : routes4) {
-            String route4string = String.format("%s", route4.prefix());
-            if ((route4string.equals(route))) {
-                //print("%s", lastAsNumber(route4.getAsPath()));
-                lastAsn = lastAsNumber(route4.getAsPath());
+        int withdrawn = intentSubmitter.withdraw(localRedirects);
+        log.info("{} redirects expired after {} ms idle, {} local redirect intents withdrawn",
+                 expired.size(), redirectIdleTimeout, withdrawn);
+
+        if (remoteRedirects.isEmpty()) {
+            return;
+        }
+        ActivationPipeline pipeline = activationPipeline;
+        ActivationPipeline.Batch batch = pipeline == null ? null
+                : pipeline.newBatch(withdrawals -> log.info("Remote redirect withdrawals completed: {}",
+                                                            withdrawals));
+        for (ActiveRedirect redirect : remoteRedirects) {
+            if (batch == null) {
+                withdrawRemoteRedirect(redirect);
+            } else if (!batch.submit(redirect.prefix(), () -> withdrawRemoteRedirect(redirect))) {
+                log.debug("Withdrawal of {} deferred, retrying in {} ms",
+                          redirect.prefix(), REDIRECT_WITHDRAWAL_RETRY);
             }
         }
-        return lastAsn;
+        if (batch != null) {
+            batch.seal();
+        }
     }
 
     /**
-     * Check and print installed intents for specific route prefix
-     * in remote controller participating in intent-based networking control.
+     * Withdraws an expired remote redirect and forgets it once the member
+     * controller confirmed the withdrawal. Otherwise the redirect is kept
+     * and its timer retries the withdrawal. The redirect of a controller
+     * removed from the configuration is forgotten right away, as there is
+     * no client left to withdraw it with.
      *
-     * @param route route prefix to be checked
-     * @param asn origination AS Number for the route
+     * @param redirect expired remote redirect
      *
-     * @return installed multi-point-to-single-point intent in remote controller
+     * @return true if the redirect was withdrawn
      */
 
-    private String checkRemoteIntent(String asn, String route) {
-
-        Class<IntentNetworkingControlConfig> configClass = IntentNetworkingControlConfig.class;
-        IntentNetworkingControlConfig memberConfig =
-                configService.getConfig(appId, configClass);
-        Set<IntentNetworkingControlConfig.ControllerConfig> memberControllers;
-        String installedIntent = "";
+    private boolean withdrawRemoteRedirect(ActiveRedirect redirect) {
+        if (controllerTable.client(redirect.controller()) == null) {
+            // No client to reach it with anymore, the redirect is left to the controller
+            log.warn("Controller {} of the redirect of {} is no longer configured, forgetting the redirect",
+                     redirect.controller().ip(), redirect.prefix());
+        } else if (!withdrawRemoteIntent(redirect)) {
+            return false;
+        }
+        if (redirectTable.remove(redirect.prefix()) != null) {
+            redirectTimers.cancel(redirect.prefix());
+        }
+        return true;
+    }
 
-        if (memberConfig == null || memberConfig.controllers().isEmpty()) {
-            log.info("no configuration");
+    private void scheduleAdoption() {
+        ScheduledExecutorService executor = controlExecutor;
+        if (executor == null || !adoptionPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::adoptRedirects);
+        } catch (RejectedExecutionException e) {
+            adoptionPending.set(false);
         }
+    }
 
-        /**
-         * Iterate all members configuration and stop for matched AS Number
-         */
+    /**
+     * Takes over the local redirects and drop rules of the prefixes owned by
+     * this instance that it does not track, installed by an instance that
+     * failed or gave the prefixes up, or before a restart, so that they
+     * expire once idle. The origin of the prefixes is read from the route
+     * index, so the adoption waits until the index holds routes.
+     */
+
+    private void adoptRedirects() {
+        adoptionPending.set(false);
+        routeIndex.refresh();
+        if (routeIndex.isEmpty()) {
+            // Retried by the first cycle that finds routes in the index
+            adoptionDeferred = true;
+            log.debug("No routes indexed yet, adoption of the redirects deferred");
+            return;
+        }
+        adoptionDeferred = false;
 
-        memberControllers = memberConfig.controllers();
+        long now = System.currentTimeMillis();
+        int adopted = 0;
+        for (Intent intent : intentService.getIntentsByAppId(appId)) {
+            if (!(intent instanceof PointToPointIntent)) {
+                continue;
+            }
+            IpPrefix prefix;
+            try {
+                prefix = IpPrefix.valueOf(intent.key().toString());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (redirectTable.isRedirected(prefix) || !isMine(prefix)) {
+                continue;
+            }
+            IntentState state = intentService.getIntentState(intent.key());
+            if (state != IntentState.INSTALLED && state != IntentState.INSTALLING) {
+                continue;
+            }
+            IntentNetworkingControlConfig.ControllerConfig controller = localController(prefix);
+            if (controller == null) {
+                continue;
+            }
+            recordRedirect(new ActiveRedirect(prefix, intent.key(), controller, now));
+            adopted++;
+        }
 
-        /*memberConfig.controllers().forEach(controllerConfig -> {
-            print("%s", controllerConfig.asn());
-            print("%s", controllerConfig.ip());
-            print("%s", controllerConfig.username());
-            print("%s", controllerConfig.password());
-            print("%s", controllerConfig.sinkPort());
-            if (asn.equals(controllerConfig.asn())) {
-                originatingMember = controllerConfig;
+        int blocked = 0;
+        for (Map.Entry<IpPrefix, ConnectPoint> rule : dropObjectives.installed().entrySet()) {
+            IpPrefix prefix = rule.getKey();
+            if (redirectTable.isRedirected(prefix) || !isMine(prefix)) {
+                continue;
             }
-        });*/
-
-        for (IntentNetworkingControlConfig.ControllerConfig memberController : memberControllers) {
-            if (memberController.asn().equals(asn)) {
-                try {
-                    installedIntent = checkIntentApi(memberController.ip(),
-                                                     memberController.username(),
-                                                     memberController.password(),
-                                                     route);
-                } catch (IOException ie) {
-                    ie.printStackTrace();
-                }
+            IntentNetworkingControlConfig.ControllerConfig controller = localController(prefix);
+            if (controller == null || !dropObjectives.adopt(prefix, rule.getValue())) {
+                continue;
             }
+            recordRedirect(new ActiveRedirect(prefix, blockKey(prefix), controller, now, ControlPolicy.BLOCK));
+            blocked++;
+        }
+
+        if (adopted > 0 || blocked > 0) {
+            log.info("Adopted {} redirects and {} drop rules of the prefixes owned by this instance",
+                     adopted, blocked);
         }
-        return installedIntent;
+    }
+
+    private IntentNetworkingControlConfig.ControllerConfig localController(IpPrefix prefix) {
+        IntentNetworkingControlConfig.ControllerConfig controller =
+                controllerTable.get(routeIndex.originAsn(prefix));
+        return controller == null || !controller.isLocal() ? null : controller;
+    }
+
+    private static Ip6Address ip6Address(long high) {
+        return Ip6Address.valueOf(ByteBuffer.allocate(Ip6Address.BYTE_LENGTH).putLong(high).putLong(0).array());
+    }
+
+    private void activationsCompleted(ActivationPipeline.Batch batch, IntentSubmitter.Batch intents) {
+        lastActivations = batch;
+        lastRedirects = intents.submit();
+        log.info("Local activations of the cycle completed: {}, {} redirect intents submitted",
+                 batch, intents.size());
     }
 
     /**
-     * Check local or remote controller based on the AS number.
-     *
-     * @param asn origination AS Number for the route
+     * Reads the flow records from the visibility server into a flow report.
+     * In incremental mode only the records newer than the cursor of the server
+     * are requested and the report holds their counts as increments, falling
+     * back to a full resync when records were missed.
      *
-     * @return local or remote type of controller
+     * @return the flow report
      */
 
-    private String checkLocalAsn(String asn) {
+    private FlowReport checkFlow() throws IOException {
 
-        Class<IntentNetworkingControlConfig> configClass = IntentNetworkingControlConfig.class;
-        IntentNetworkingControlConfig memberConfig =
-                configService.getConfig(appId, configClass);
-        Set<IntentNetworkingControlConfig.ControllerConfig> memberControllers;
-        String localAsn = "";
+        String flowAPIURL = "http://" + VISIBILITY_SERVER + ":8000" + FLOW_API;
 
-        if (memberConfig == null || memberConfig.controllers().isEmpty()) {
-            log.info("no configuration");
+        if (!incrementalFlowFeed) {
+            FlowReport report = newFlowReport(false);
+            fetchFlows(flowAPIURL, report::add, false);
+            return report;
         }
 
-        /**
-         * Iterate all members configuration and stop for matched AS Number
-         */
+        try {
+            return fetchFlowDelta(flowAPIURL);
+        } catch (FlowFeedCursor.GapException e) {
+            log.info("Resynchronizing flows: {}", e.getMessage());
+            flowFeedCursor.reset(flowAPIURL);
+            // The totals of the full feed include the missed records, unlike the running totals
+            rateDetector.clear();
+            ip6RateDetector.clear();
+            return fetchFlowDelta(flowAPIURL);
+        }
+    }
+
+    private FlowReport fetchFlowDelta(String flowAPIURL) throws IOException {
+        long since = flowFeedCursor.position(flowAPIURL);
+        String deltaURL = since == FlowFeedCursor.NONE ?
+                flowAPIURL : flowAPIURL + "?" + FLOW_API_SINCE + "=" + since;
+
+        FlowReport report = newFlowReport(since != FlowFeedCursor.NONE);
+        FlowFeedCursor.Tracker tracker = flowFeedCursor.track(flowAPIURL, report::add);
+        fetchFlows(deltaURL, tracker, since != FlowFeedCursor.NONE);
+        tracker.complete();
+        return report;
+    }
+
+    private FlowReport newFlowReport(boolean incremental) {
+        return new FlowReport(System.currentTimeMillis(), maxAggregationLength,
+                              maxIp6AggregationLength, incremental);
+    }
+
+    private int fetchFlows(String flowURL, Consumer<FlowRecord> handler, boolean delta)
+            throws IOException {
 
-        memberControllers = memberConfig.controllers();
+        URL url = new URL(flowURL);
+        int flows = 0;
 
-        for (IntentNetworkingControlConfig.ControllerConfig memberController : memberControllers) {
-            if (memberController.asn().equals(asn)) {
-                if (memberController.controllerType() == "local") {
-                    localAsn = asn;
+        HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+        urlConnection.setConnectTimeout(FLOW_API_TIMEOUT);
+        urlConnection.setReadTimeout(FLOW_API_TIMEOUT);
+        try {
+            int responseCode = urlConnection.getResponseCode();
+            if (responseCode == 200) {
+                try (InputStream is = urlConnection.getInputStream()) {
+                    flows = FlowFeedParser.parse(is, handler);
                 }
+                log.debug("Flows Exist");
+            } else if (delta && responseCode == HttpURLConnection.HTTP_GONE) {
+                throw new FlowFeedCursor.GapException("Flow feed " + flowURL + " is no longer available");
+            } else {
+                log.info("Flows Not Exist");
             }
+        } finally {
+            urlConnection.disconnect();
         }
-        return localAsn;
+        return flows;
     }
 
     /**
-     * Gets specific last/originating AS Number from AS Path.
+     * Activate the networking control.
      *
-     * @param asPath AS Path to be checked from specific route
+     * @param route route prefix to be redirected
      *
-     * @return the last/origination AS Number.
+     * @return true if a redirect is in place for the prefix after this call
      */
 
-    private String lastAsNumber(BgpRouteEntry.AsPath asPath) {
-
-        String lastSegment = "";
+    public boolean activate(String route) {
 
-        ArrayList<BgpRouteEntry.PathSegment> pathSegments =
-                asPath.getPathSegments();
+        IpPrefix prefix = IpPrefix.valueOf(route);
 
         /**
-         * Only get last segment of the AS Path
+         * Resolve the originating AS Number and its controller once for the whole activation
          */
 
-        for (BgpRouteEntry.PathSegment pathSegment : pathSegments) {
-            for (Long asn : pathSegment.getSegmentAsNumbers()) {
-                if (pathSegment == pathSegments.get(pathSegments.size() - 1)) {
-                    lastSegment = asn.toString();
-                }
+        long asn = routeIndex.originAsn(prefix);
+        return activate(new ResolvedPrefix(prefix, asn, asn == RouteIndex.NO_ASN ? null : controllerTable.get(asn)));
+    }
+
+    /**
+     * Activate the networking control for a prefix already resolved to its
+     * origin AS and member controller.
+     *
+     * @param resolved resolved route prefix to be redirected
+     *
+     * @return true if a redirect is in place for the prefix after this call
+     */
+
+    public boolean activate(ResolvedPrefix resolved) {
+        IntentSubmitter.Batch intents = intentSubmitter.newBatch();
+        boolean redirected = activate(resolved, intents);
+        intents.submit();
+        return redirected;
+    }
+
+    /**
+     * Activates the networking control for a resolved prefix, adding the
+     * local redirect intent to the given batch rather than submitting it.
+     *
+     * @param resolved resolved route prefix to be redirected
+     * @param intents  batch collecting the redirect intents
+     *
+     * @return true if a redirect is in place for the prefix after this call
+     */
+
+    private boolean activate(ResolvedPrefix resolved, IntentSubmitter.Batch intents) {
+
+        IpPrefix prefix = resolved.prefix();
+        String route = prefix.toString();
+
+        if (redirectTable.isRedirected(prefix)) {
+            log.debug("Redirect is already in place for this prefix {}", route);
+            return false;
+        }
+
+        long asn = resolved.asn();
+        if (asn == RouteIndex.NO_ASN) {
+            log.info("No originating AS Number for this prefix {}", route);
+            return false;
+        }
+
+        IntentNetworkingControlConfig.ControllerConfig controller = resolved.controller();
+        if (controller == null) {
+            log.info("No member controller is configured for AS {} of this prefix {}", asn, route);
+            return false;
+        }
+
+        if (controller.isLocal()) {
+
+            log.info("This prefix {} is originating from Local AS Number (AS {})", route, asn);
+
+            if (checkLocalIntent(route) == null) {
+                log.info("No local intent is installed for this prefix {}", route);
+            } else if (policyTable.policy(prefix) == ControlPolicy.BLOCK) {
+                log.info("Local intent is installed for this prefix {}, blocking it", route);
+                blockLocalTraffic(route, controller);
+            } else {
+                log.info("Local intent is installed for this prefix {}", route);
+                modifyIntent(route, controller, intents);
+            }
+
+        } else {
+
+            log.info("This prefix {} is originating from Remote AS Number {}", route, asn);
+
+            if (policyTable.policy(prefix) == ControlPolicy.BLOCK) {
+                log.warn("Prefix {} of remote AS {} cannot be blocked, only its own controller can drop it; "
+                                 + "redirecting it instead", route, asn);
+            }
 
+            String matchRemoteIntent = checkRemoteIntent(controller, route);
+
+            if (matchRemoteIntent == null || matchRemoteIntent.isEmpty()) {
+                log.info("No remote intent is installed for this prefix {}", route);
+            } else {
+                log.info("remote intent is installed for this prefix {}", route);
+                modifyRemoteIntent(controller, route, matchRemoteIntent);
             }
+
         }
-        return lastSegment;
+
+        return redirectTable.isRedirected(prefix);
     }
 
     /**
-     * Check and print the status of installed intents through intent REST API
-     * for specific route prefix in remote controller participating in intent-based networking control
-     * with given configuration from SDX coordination application config.
+     * Gets specific installed intents for specific route prefix.
      *
-     * @param onosIp Remote Controller's IP address
-     * @param user Remote Controller's username
-     * @param password Remote Controller's password
      * @param route route prefix to be checked
+     *
+     * @return the multi-point-to-single-point intent of SDN-IP.
      */
 
-    private String checkIntentApi(String onosIp, String user, String password, String route) throws IOException {
+    private Intent checkLocalIntent(String route) {
+        return localIntents.get(route);
+    }
 
-        String intentUrl = "http://" + onosIp + ":8181" + INTENT_API + SDN_IP_APP + "/" + route.replaceAll("/", "%2F");
-        URL url = null;
-        String intent = "";
+    /**
+     * Check installed intents for specific route prefix
+     * in remote controller participating in intent-based networking control.
+     *
+     * @param controller remote controller of the originating AS
+     * @param route route prefix to be checked
+     *
+     * @return installed multi-point-to-single-point intent in remote controller,
+     * or null if it cannot be read
+     */
 
+    private String checkRemoteIntent(IntentNetworkingControlConfig.ControllerConfig controller, String route) {
         try {
-            url = new URL(intentUrl);
-            Authenticator.setDefault(new Authenticator() {
-                protected PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication(user, password.toCharArray());
-                }
-            });
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
+            return checkIntentApi(memberClient(controller), route);
+        } catch (IOException ie) {
+            log.warn("Unable to check intent of {} on {}: {}", route, controller.ip(), ie.getMessage());
+            return null;
         }
+    }
 
-        /**
-         * Make REST API Call to remote controller
-         */
+    /**
+     * Check the status of installed intents through intent REST API
+     * for specific route prefix in remote controller participating in intent-based networking control
+     * with given configuration from SDX coordination application config.
+     *
+     * @param client REST client of the remote controller
+     * @param route route prefix to be checked
+     *
+     * @return installed multi-point-to-single-point intent, or an empty string if there is none
+     */
 
-        HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
-        int responseCode = urlConnection.getResponseCode();
-        if (responseCode == 200) {
-            InputStream is = urlConnection.getInputStream();
-            BufferedReader in = new BufferedReader(new InputStreamReader(is));
-            intent = in.readLine();
-            //print (intent);
+    private String checkIntentApi(MemberClient client, String route) throws IOException {
+
+        MemberClient.Response response =
+                client.get(INTENT_API + SDN_IP_APP + "/" + route.replaceAll("/", "%2F"));
+        if (response.status() == HttpURLConnection.HTTP_OK) {
             log.info("Intent Exist");
-        } else {
-            //print (intent);
-            log.info("Intent Not Exist");
+            return response.body().trim();
         }
-
-        return intent;
+        log.info("Intent Not Exist");
+        return "";
     }
 
     /**
      * Modify installed intents for specific route prefix.
      *
      * @param route intent for specific route prefix to be checked
+     * @param controller local controller of the originating AS
+     * @param intents batch collecting the redirect intent
      */
 
-    private void modifyIntent(String route) {
+    private void modifyIntent(String route, IntentNetworkingControlConfig.ControllerConfig controller,
+                              IntentSubmitter.Batch intents) {
 
-        IntentNetworkingControlConfig memberConfig =
-                configService.getConfig(appId, configClass);
-        Set<ConnectPoint> filteredIngressPoint = new HashSet<>();
+        MultiPointToSinglePointIntent pi = localIntents.get(route);
+        if (pi != null) {
+            FilteredConnectPoint sinkPoint = controllerTable.sinkPoint(controller.asn());
+            if (sinkPoint == null) {
+                log.warn("No valid sink port is configured for AS {}", controller.asn());
+                return;
+            }
 
+            Intent modifiedIntent = redirectTemplates.redirect(Key.of(pi.key().toString(), appId),
+                                                               pi.filteredEgressPoint(), sinkPoint);
 
-        if (memberConfig == null || memberConfig.controllers().isEmpty()) {
-            log.info("no configuration");
-            return;
+            intents.add(modifiedIntent);
+            recordRedirect(new ActiveRedirect(IpPrefix.valueOf(route), modifiedIntent.key(),
+                                              controller, System.currentTimeMillis()));
+            log.info("Modified Multipoint to single point intent queued:\n{}", modifiedIntent);
         }
+    }
 
-        for (Intent intent : intentService.getIntents()) {
-            if (intent instanceof MultiPointToSinglePointIntent) {
-                MultiPointToSinglePointIntent pi = (MultiPointToSinglePointIntent) intent;
-                String key = String.format("%s", pi.key());
-                if (key.equals(route)) {
-                    //    print("%s", pi.toString());
-                    //    print("%s", pi.id().toString());
-                    //    print("%s", pi.key().toString());
-                    //    print("%s", pi.priority());
-                    //print("%s", pi.resources().toString());
-                    //    print("%s", pi.selector().toString());
-                    //    print("%s", pi.treatment().toString());
-
-                    /*
-                    for (ConnectPoint ingressPoint : pi.ingressPoints()) {
-                        if (ingressPoint.toString().equals(pi.egressPoint().toString())) {
-                            //print("same interface");
-                        } else {
-                            //print("%s", ingressPoint.toString());
-                            filteredIngressPoint.add(ingressPoint);
-                        }
-                    }
-                    */
-
-                    //print("%s", pi.egressPoint().toString());
-                    //print("%s", pi.constraints());
-
-                    sinkPort = findSinkPort(route);
-                    FilteredConnectPoint sinkPoint =
-                            new FilteredConnectPoint(ConnectPoint.deviceConnectPoint(sinkPort));
-                    //print("%s", SINKPORT);
-                    //ConnectPoint sinkPortCP = ConnectPoint.deviceConnectPoint(SINKPORT);
-                    //print("%s", sinkPortCP.toString());
-
-                    /*Intent modifiedIntent = MultiPointToSinglePointIntent.builder()
-                            .appId(intentNetworkingControlAppId)
-                            .key(Key.of(pi.key().toString(), intentNetworkingControlAppId))
-                            .selector(pi.selector())
-                            .treatment(pi.treatment())
-                            .ingressPoints(filteredIngressPoint)
-                            .egressPoint(ConnectPoint.deviceConnectPoint(sinkPort))
-                            .constraints(pi.constraints())
-                            .priority(PRIORITY)
-                            .build();
-                            */
-
-                    Intent modifiedIntent = PointToPointIntent.builder()
-                            .appId(appId)
-                            .key(Key.of(pi.key().toString(), appId))
-                            .filteredIngressPoint(pi.filteredEgressPoint())
-                            .filteredEgressPoint(sinkPoint)
-                            .priority(PRIORITY)
-                            .build();
-
-                    intentService.submit(modifiedIntent);
-                    log.info("Modified Multipoint to single point intent submitted:\n%s", modifiedIntent.toString());
-                }
-            }
+    /**
+     * Drops the traffic from a route prefix at the edge port it enters
+     * the network from, the egress point of its SDN-IP intent towards the
+     * originating AS. The ingress points of that intent are where traffic
+     * towards the prefix enters, not traffic from it.
+     *
+     * @param route route prefix to be blocked
+     * @param controller local controller of the originating AS
+     */
+
+    private void blockLocalTraffic(String route, IntentNetworkingControlConfig.ControllerConfig controller) {
+        MultiPointToSinglePointIntent pi = localIntents.get(route);
+        if (pi == null) {
+            return;
         }
+        IpPrefix prefix = IpPrefix.valueOf(route);
+        dropObjectives.install(prefix, pi.egressPoint());
+        recordRedirect(new ActiveRedirect(prefix, blockKey(prefix), controller,
+                                          System.currentTimeMillis(), ControlPolicy.BLOCK));
+        log.info("Drop rule of {} queued at {}", route, pi.egressPoint());
+    }
+
+    /**
+     * Gets the key of the entry of a blocked prefix in the redirect table.
+     * Blocked prefixes have no intent, so the key is one no intent of the
+     * application uses, and the events of the former redirect intent of the
+     * prefix leave the entry of its drop rule in place.
+     *
+     * @param prefix blocked route prefix
+     *
+     * @return key of the blocked prefix
+     */
+
+    private Key blockKey(IpPrefix prefix) {
+        return Key.of(BLOCK_KEY_PREFIX + prefix, appId);
     }
 
     /**
      * Add point-to-point intent to override installed multi-point-to-single-point intent
-     * for specific route prefix in local controller.
+     * for specific route prefix in remote controller.
      *
-     * @param asn of originating route prefix
+     * @param controller remote controller of the originating AS
+     * @param route route prefix to be redirected
      * @param matchIntent installed intent for specific route prefix to be modified
      */
 
-    private void modifyRemoteIntent(String asn, String matchIntent) {
-
-        IntentNetworkingControlConfig memberConfig =
-                configService.getConfig(appId, configClass);
-        //print("%s", memberConfig.toString());
-        if (memberConfig == null || memberConfig.controllers().isEmpty()) {
-            log.info("no configuration");
+    private void modifyRemoteIntent(IntentNetworkingControlConfig.ControllerConfig controller,
+                                    String route, String matchIntent) {
+        String sinkPoint = controllerTable.sinkPointJson(controller.asn());
+        if (sinkPoint == null) {
+            log.warn("No valid sink port is configured for AS {}", controller.asn());
             return;
         }
+        try {
+            modifyIntentApi(memberClient(controller),
+                            route,
+                            matchIntent,
+                            sinkPoint);
+            recordRedirect(new ActiveRedirect(IpPrefix.valueOf(route), Key.of(route, appId),
+                                              controller, System.currentTimeMillis()));
+        } catch (IOException ie) {
+            log.warn("Unable to redirect {} on {}: {}", route, controller.ip(), ie.getMessage());
+        }
+    }
 
-        log.info("%s", matchIntent);
-
-        memberConfig.controllers().forEach(controllerConfig -> {
-            log.info("%s", controllerConfig.asn());
-            log.info("%s", controllerConfig.ip());
-            log.info("%s", controllerConfig.username());
-            log.info("%s", controllerConfig.password());
-            log.info("%s", controllerConfig.sinkPort());
-            log.info("%s", matchIntent);
-
-            if (asn.equals(controllerConfig.asn())) {
-                try {
-                    log.info(matchIntent);
-                    modifyIntentApi(controllerConfig.ip(),
-                                    controllerConfig.username(),
-                                    controllerConfig.password(),
-                                    matchIntent,
-                                    controllerConfig.sinkPort());
-                } catch (IOException ie) {
-                    ie.printStackTrace();
-                }
-                return;
-            }
-        });
+    /**
+     * Withdraws the redirect intent of a route prefix from a remote controller.
+     *
+     * @param redirect expired remote redirect
+     *
+     * @return true if the redirect intent was withdrawn
+     */
+
+    private boolean withdrawRemoteIntent(ActiveRedirect redirect) {
+        IntentNetworkingControlConfig.ControllerConfig controller = redirect.controller();
+        String route = redirect.prefix().toString();
+        try {
+            withdrawIntentApi(memberClient(controller), route);
+            log.info("Withdrew redirect of {} on {}", route, controller.ip());
+            return true;
+        } catch (IOException ie) {
+            log.warn("Unable to withdraw redirect of {} on {}: {}", route, controller.ip(), ie.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Withdraw the point-to-point intent redirecting a route prefix in a
+     * remote controller through REST API.
+     *
+     * @param client REST client of the remote controller
+     * @param route route prefix used as key of the redirect intent
+     */
+
+    private void withdrawIntentApi(MemberClient client, String route) throws IOException {
+        String path = INTENT_API + IntentNetworkingControl.INTENT_NETWORKING_CONTROL_APP
+                + "/" + route.replaceAll("/", "%2F");
+        int responseCode = client.delete(path).status();
+        if (responseCode != HttpURLConnection.HTTP_NO_CONTENT
+                && responseCode != HttpURLConnection.HTTP_OK
+                && responseCode != HttpURLConnection.HTTP_NOT_FOUND) {
+            throw new IOException("HTTP error code " + responseCode);
+        }
     }
 
     /**
      * Add point-to-point intent to override installed multi-point-to-single-point intent
-     * for specific route prefix in remote controller through REST API.
+     * for specific route prefix in remote controller through REST API. The
+     * request body is assembled from its constant head and the sink point
+     * precomputed for the controller, only the key and the ingress point
+     * depending on the prefix.
      *
-     * @param onosIp Remote Controller's IP address
-     * @param user Remote Controller's username
-     * @param password Remote Controller's password
+     * @param client REST client of the remote controller
+     * @param route route prefix used as key of the redirect intent
      * @param matchIntent Intent need to be modified/override
-     * @param sinkPort port for redirecting the traffic
+     * @param sinkPoint sink point for redirecting the traffic, in JSON
      */
 
-    private void modifyIntentApi(String onosIp,
-                                 String user,
-                                 String password,
+    private void modifyIntentApi(MemberClient client,
+                                 String route,
                                  String matchIntent,
-                                 String sinkPort) throws IOException {
+                                 String sinkPoint) throws IOException {
 
         log.info(matchIntent);
-        URL url = null;
-        //String intentUrl = "http://172.30.91.112:8181/onos/v1/intents";
-        String intentUrl = "http://" + onosIp + ":8181" + INTENT_API;
-
-        // Parse JSON String to get MP2SP intent egress Port
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode matchIntentJson = mapper.readValue(matchIntent, JsonNode.class);
-        JsonNode matchIntentEgressPoint = matchIntentJson.get("egressPoint");
-        ObjectNode modifyIngressPort = mapper.createObjectNode();
-        modifyIngressPort.put("port", matchIntentEgressPoint.get("port"));
-        modifyIngressPort.put("device", matchIntentEgressPoint.get("device"));
-
-        // Create egress Port for Policy Config
-        String[] sinkPortComponent = sinkPort.split("/");
-
-        // Create JSON for P2P intent
-        JsonNode intentJson = mapper.createObjectNode();
-        ((ObjectNode) intentJson).put("type", "PointToPointIntent");
-        ((ObjectNode) intentJson).put("appId", IntentNetworkingControl.INTENT_NETWORKING_CONTROL_APP);
-        ((ObjectNode) intentJson).put("priority", String.valueOf(PRIORITY));
-        //JsonNode ingressPoint = mapper.createObjectNode();
-        //((ObjectNode) ingressPoint).put("port", "4");
-        //((ObjectNode) ingressPoint).put("device", "of:0000000000000002");
-        //((ObjectNode) intentJson).set("ingressPoint", ingressPoint);
-        ((ObjectNode) intentJson).set("ingressPoint", modifyIngressPort);
-        JsonNode egressPoint = mapper.createObjectNode();
-        ((ObjectNode) egressPoint).put("port", sinkPortComponent[1]);
-        ((ObjectNode) egressPoint).put("device", sinkPortComponent[0]);
-        ((ObjectNode) intentJson).set("egressPoint", egressPoint);
-
-        System.out.println(intentJson);
 
-        try {
-            url = new URL(intentUrl);
-            Authenticator.setDefault(new Authenticator() {
-                protected PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication(user, password.toCharArray());
-                }
-            });
+        // The egress point of the MP2SP intent is where the redirected traffic enters
+        JsonNode matchIntentEgressPoint = MAPPER.readTree(matchIntent).get("egressPoint");
+        if (matchIntentEgressPoint == null) {
+            throw new IOException("No egress point in intent " + matchIntent);
+        }
 
-            HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+        String intentJson = new StringBuilder(REDIRECT_REQUEST_HEAD)
+                .append(",\"key\":").append(TextNode.valueOf(route))
+                .append(",\"ingressPoint\":{\"port\":").append(matchIntentEgressPoint.get("port"))
+                .append(",\"device\":").append(matchIntentEgressPoint.get("device"))
+                .append("},\"egressPoint\":").append(sinkPoint)
+                .append('}')
+                .toString();
 
-            urlConnection.setDoOutput(true);
-            urlConnection.setRequestMethod("POST");
-            urlConnection.setRequestProperty("Content-Type", "application/json");
-            OutputStream os = urlConnection.getOutputStream();
-            os.write(intentJson.toString().getBytes());
-            os.flush();
+        log.debug("Posting redirect intent {}", intentJson);
 
-            if (urlConnection.getResponseCode() != HttpURLConnection.HTTP_CREATED) {
-                throw new RuntimeException("Failed : HTTP error code : "
-                                                   + urlConnection.getResponseCode());
-            }
+        MemberClient.Response response = client.post(INTENT_API, intentJson);
+        if (response.status() != HttpURLConnection.HTTP_CREATED) {
+            throw new IOException("HTTP error code " + response.status() + ": " + response.body());
+        }
+        log.debug("Output from Server: {}", response.body());
 
-            BufferedReader br = new BufferedReader(new InputStreamReader(
-                    (urlConnection.getInputStream())));
+    }
 
-            String output;
-            System.out.println("Output from Server .... \n");
-            while ((output = br.readLine()) != null) {
-                System.out.println(output);
-            }
-            urlConnection.disconnect();
+    /**
+     * Gets the REST client of a member controller, shared with the other
+     * calls to the controller.
+     *
+     * @param controller member controller
+     *
+     * @return the REST client
+     *
+     * @throws IOException if the controller is no longer configured
+     */
 
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
+    private MemberClient memberClient(IntentNetworkingControlConfig.ControllerConfig controller) throws IOException {
+        MemberClient client = controllerTable.client(controller);
+        if (client == null) {
+            throw new IOException("Controller " + controller.ip() + " is no longer configured");
         }
-
+        return client;
     }
 
     /**
-     * Find the sink port configuration from the member controller
-     * based on the route prefix.
+     * Gets the REST client of the member controller responsible for an AS.
      *
-     * @param route route prefix to be checked
+     * @param asn AS number
      *
-     * @return the sink port location
+     * @return the REST client, or null if no controller is configured
      */
 
-    private String findSinkPort(String route) {
-        Class<IntentNetworkingControlConfig> configClass = IntentNetworkingControlConfig.class;
-        IntentNetworkingControlConfig memberConfig =
-                configService.getConfig(appId, configClass);
-        if (memberConfig == null || memberConfig.controllers().isEmpty()) {
-            log.info("no configuration");
-            return null;
+    public MemberClient memberClient(long asn) {
+        return controllerTable.client(asn);
+    }
+
+    /**
+     * Loads the member controllers and prefix policies from the network
+     * configuration.
+     */
+
+    private void loadControllers() {
+        IntentNetworkingControlConfig config = configService.getConfig(appId, configClass);
+        controllerTable = ControllerTable.of(config, controllerTable);
+        redirectTemplates.clear();
+        policyTable = PolicyTable.of(config);
+        log.info("Loaded {} member controllers and {} prefix policies", controllerTable.size(), policyTable.size());
+    }
+
+    /**
+     * Reloads the member controllers when their configuration changes.
+     */
+
+    private class InternalConfigListener implements NetworkConfigListener {
+        @Override
+        public void event(NetworkConfigEvent event) {
+            if (!configClass.equals(event.configClass())) {
+                return;
+            }
+            switch (event.type()) {
+                case CONFIG_ADDED:
+                case CONFIG_UPDATED:
+                case CONFIG_REMOVED:
+                    loadControllers();
+                    break;
+                default:
+                    break;
+            }
         }
+    }
 
-        /**
-         * Find the AS Number from the prefix
-         */
+    /**
+     * Adopts the redirects of the prefixes this instance gains when the
+     * work partitions move between the instances of the cluster.
+     */
 
-        String asn = routeToAsn(route);
+    private class InternalPartitionListener implements WorkPartitionEventListener {
+        @Override
+        public void event(WorkPartitionEvent event) {
+            scheduleAdoption();
+        }
+    }
 
-        /**
-         * Iterate all members configuration and stop for matched AS Number
-         */
+    /**
+     * Forgets redirects whose intent is no longer installed, so that
+     * the prefix can be redirected again when it stays hot.
+     */
 
-        memberConfig.controllers().forEach(controllerConfig -> {
-            //print("%s", controllerConfig.sinkPort());
-            if (asn.equals(controllerConfig.asn())) {
-                sinkPort = controllerConfig.sinkPort();
+    private class InternalIntentListener implements IntentListener {
+        @Override
+        public void event(IntentEvent event) {
+            localIntents.update(event);
+            if (!appId.equals(event.subject().appId())) {
+                return;
             }
-        });
-        return sinkPort;
+            intentSubmitter.update(event);
+            switch (event.type()) {
+                case WITHDRAWN:
+                case FAILED:
+                case PURGED:
+                    ActiveRedirect redirect = redirectTable.remove(event.subject().key());
+                    if (redirect != null) {
+                        redirectTimers.cancel(redirect.prefix());
+                        log.info("Redirect for prefix {} is no longer in place", redirect.prefix());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.onlab.packet.IpPrefix;
+import org.onosproject.net.intent.MultiPointToSinglePointIntent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Service for feeding flow reports into the intent networking control and
+ * querying the state it relies on.
+ */
+
+public interface IntentNetworkingControlService {
+
+    /**
+     * AS number returned when a route prefix has no known origin.
+     */
+    long NO_ASN = -1;
+
+    /**
+     * Latency stage from the decision of a redirect to the submission of its intent.
+     */
+    String LATENCY_DECISION_TO_SUBMIT = "decision-to-submit";
+
+    /**
+     * Latency stage from the submission of a redirect intent to its installation.
+     */
+    String LATENCY_SUBMIT_TO_INSTALL = "submit-to-installed";
+
+    /**
+     * Latency stage from the decision of a redirect to the installation of its intent.
+     */
+    String LATENCY_DECISION_TO_INSTALL = "decision-to-installed";
+
+    /**
+     * Submits a batch of flow records pushed by the visibility server.
+     * The records are parsed right away and handed to the same detection
+     * path as the polled flow feed. A batch holds the records since the
+     * previous push, whose counters are added to the running totals of
+     * their subnets.
+     *
+     * @param stream flow records in the format of the visibility flow feed
+     * @return true if the report was accepted, false if too many reports are
+     * already pending
+     * @throws IOException if the stream cannot be read or parsed
+     */
+    boolean reportFlows(InputStream stream) throws IOException;
+
+    /**
+     * Gets the origin AS number of a route prefix announced in the BGP RIB.
+     *
+     * @param prefix route prefix
+     * @return the origin AS number, or {@link #NO_ASN} if the prefix is not announced
+     */
+    long originAsn(IpPrefix prefix);
+
+    /**
+     * Gets the member controller responsible for an AS.
+     *
+     * @param asn AS number
+     * @return the member controller, or null if none is configured
+     */
+    IntentNetworkingControlConfig.ControllerConfig memberController(long asn);
+
+    /**
+     * Gets the REST client of the member controller responsible for an AS,
+     * shared by all the calls to the controller.
+     *
+     * @param asn AS number
+     * @return the REST client, or null if no controller is configured
+     */
+    MemberClient memberClient(long asn);
+
+    /**
+     * Gets the multi-point-to-single-point intent installed locally by
+     * SDN-IP for a route prefix.
+     *
+     * @param route route prefix
+     * @return the SDN-IP intent, or null if none is installed
+     */
+    MultiPointToSinglePointIntent localIntent(String route);
+
+    /**
+     * Activates the control for a route prefix on demand. The prefix takes
+     * the same path as the surging prefixes detected by the control, so its
+     * redirect is recorded and expires once the prefix goes idle.
+     *
+     * @param prefix route prefix
+     * @return the redirect in place for the prefix after the call, or null
+     * if none could be installed
+     */
+    ActiveRedirect activate(IpPrefix prefix);
+
+    /**
+     * Gets the latency histograms of the redirect intents installed locally,
+     * by stage: {@link #LATENCY_DECISION_TO_SUBMIT},
+     * {@link #LATENCY_SUBMIT_TO_INSTALL} and {@link #LATENCY_DECISION_TO_INSTALL}.
+     *
+     * @return latency histograms by stage, empty if the control is not running
+     */
+    Map<String, LatencyHistogram> redirectLatencies();
+}
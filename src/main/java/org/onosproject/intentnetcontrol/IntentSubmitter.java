@@ -0,0 +1,326 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentEvent;
+import org.onosproject.net.intent.IntentService;
+import org.onosproject.net.intent.IntentState;
+import org.onosproject.net.intent.Key;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Submits the redirect intents of the daemon in batches through the intent
+ * service and tracks their completion. Each intent gets a future that
+ * completes with the state the intent reaches, INSTALLED, FAILED or
+ * WITHDRAWN, as reported by the intent events.
+ * <p>
+ * The latency of each redirect is recorded in histograms from the time the
+ * intent was decided, that is added to a batch, to its submission and from
+ * its submission to its installation.
+ * </p>
+ * <p>
+ * Each instance of the cluster submits the redirects of its own share of
+ * the prefixes, so the intents go to the intent service directly rather
+ * than through the intent synchronizer, which only submits on the leader.
+ * Intents that never get an event are expired after a while rather than
+ * tracked forever.
+ * </p>
+ * <p>
+ * The intent service has no bulk submission, so a batch is the set of
+ * intents decided by the activations of one cycle, held back until those
+ * activations are done and then submitted back to back. Submitting is
+ * asynchronous: the intent manager accumulates the pending operations and
+ * compiles and installs them together, so intents submitted back to back
+ * are installed as a batch.
+ * </p>
+ */
+
+final class IntentSubmitter {
+
+    private static final Logger log = LoggerFactory.getLogger(IntentSubmitter.class);
+
+    private final IntentService intentService;
+    private final Map<Key, Submission> pending = new ConcurrentHashMap<>();
+    private final LatencyHistogram submitLatency = new LatencyHistogram();
+    private final LatencyHistogram installLatency = new LatencyHistogram();
+    private final LatencyHistogram totalLatency = new LatencyHistogram();
+
+    /**
+     * Creates an intent submitter.
+     *
+     * @param intentService intent service the intents are submitted through
+     */
+    IntentSubmitter(IntentService intentService) {
+        this.intentService = intentService;
+    }
+
+    /**
+     * Creates an empty batch of intents.
+     *
+     * @return new batch
+     */
+    Batch newBatch() {
+        return new Batch();
+    }
+
+    /**
+     * Gets the completion of a submitted intent.
+     *
+     * @param key intent key
+     * @return the completion of the intent, or null if it is not pending
+     */
+    CompletableFuture<IntentState> completion(Key key) {
+        Submission submission = pending.get(key);
+        return submission == null ? null : submission.completion;
+    }
+
+    /**
+     * Completes the submission of an intent from an intent event.
+     *
+     * @param event intent event
+     */
+    void update(IntentEvent event) {
+        IntentState state;
+        switch (event.type()) {
+            case INSTALLED:
+                state = IntentState.INSTALLED;
+                break;
+            case FAILED:
+                state = IntentState.FAILED;
+                break;
+            case WITHDRAWN:
+            case PURGED:
+                state = IntentState.WITHDRAWN;
+                break;
+            default:
+                return;
+        }
+        Submission submission = pending.remove(event.subject().key());
+        if (submission == null) {
+            return;
+        }
+        if (state == IntentState.INSTALLED) {
+            long now = System.nanoTime();
+            installLatency.record(now - submission.submittedNanos, TimeUnit.NANOSECONDS);
+            totalLatency.record(now - submission.decidedNanos, TimeUnit.NANOSECONDS);
+        }
+        submission.completion.complete(state);
+    }
+
+    /**
+     * Withdraws a batch of intents through the intent service.
+     *
+     * @param intents intents to withdraw
+     * @return the number of intents withdrawn
+     */
+    int withdraw(Collection<? extends Intent> intents) {
+        int withdrawn = 0;
+        for (Intent intent : intents) {
+            try {
+                intentService.withdraw(intent);
+                withdrawn++;
+            } catch (RuntimeException e) {
+                log.warn("Unable to withdraw intent {}: {}", intent.key(), e.getMessage());
+            }
+        }
+        if (withdrawn > 0) {
+            log.debug("Withdrew a batch of {} intents", withdrawn);
+        }
+        return withdrawn;
+    }
+
+    /**
+     * Expires the intents submitted before the given time that did not
+     * complete yet; their completions fail with a timeout.
+     *
+     * @param submittedBefore time in milliseconds
+     * @return the number of expired intents
+     */
+    int expire(long submittedBefore) {
+        int expired = 0;
+        for (Iterator<Submission> it = pending.values().iterator(); it.hasNext();) {
+            Submission submission = it.next();
+            if (submission.submittedAt < submittedBefore) {
+                it.remove();
+                submission.completion.completeExceptionally(
+                        new TimeoutException("Intent " + submission.intent.key() + " did not complete"));
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Cancels the completion of every pending intent.
+     */
+    void cancel() {
+        for (Iterator<Submission> it = pending.values().iterator(); it.hasNext();) {
+            Submission submission = it.next();
+            it.remove();
+            submission.completion.cancel(false);
+        }
+    }
+
+    /**
+     * Gets the number of intents submitted and not completed yet.
+     *
+     * @return number of pending intents
+     */
+    int pending() {
+        return pending.size();
+    }
+
+    /**
+     * Gets the latencies from the decision of the redirects to the
+     * submission of their intents.
+     *
+     * @return decision to submission latencies
+     */
+    LatencyHistogram submitLatency() {
+        return submitLatency;
+    }
+
+    /**
+     * Gets the latencies from the submission of the redirect intents to
+     * their installation.
+     *
+     * @return submission to installation latencies
+     */
+    LatencyHistogram installLatency() {
+        return installLatency;
+    }
+
+    /**
+     * Gets the latencies from the decision of the redirects to the
+     * installation of their intents.
+     *
+     * @return decision to installation latencies
+     */
+    LatencyHistogram totalLatency() {
+        return totalLatency;
+    }
+
+    /**
+     * Intents collected during one activation cycle and submitted back to
+     * back, one intent service call each, once the cycle's activations are
+     * done.
+     */
+    final class Batch {
+
+        private final List<Submission> submissions = new ArrayList<>();
+        private boolean submitted;
+
+        private Batch() {
+        }
+
+        /**
+         * Adds an intent to the batch.
+         *
+         * @param intent intent to submit
+         * @return completion of the intent
+         */
+        synchronized CompletableFuture<IntentState> add(Intent intent) {
+            Submission submission = new Submission(intent);
+            if (submitted) {
+                submit(submission);
+            } else {
+                submissions.add(submission);
+            }
+            return submission.completion;
+        }
+
+        /**
+         * Submits the intents of the batch in turn, none of the calls waiting
+         * for the intent to be installed. Intents added afterwards are
+         * submitted right away.
+         *
+         * @return future completing once every intent of the batch completed
+         */
+        synchronized CompletableFuture<Void> submit() {
+            submitted = true;
+            CompletableFuture<?>[] completions = new CompletableFuture<?>[submissions.size()];
+            for (int i = 0; i < completions.length; i++) {
+                Submission submission = submissions.get(i);
+                submit(submission);
+                completions[i] = submission.completion;
+            }
+            if (completions.length > 0) {
+                log.debug("Submitted a batch of {} intents", completions.length);
+            }
+            return CompletableFuture.allOf(completions);
+        }
+
+        /**
+         * Gets the number of intents of the batch.
+         *
+         * @return number of intents
+         */
+        synchronized int size() {
+            return submissions.size();
+        }
+
+        private void submit(Submission submission) {
+            submission.submittedAt = System.currentTimeMillis();
+            submission.submittedNanos = System.nanoTime();
+            submitLatency.record(submission.submittedNanos - submission.decidedNanos, TimeUnit.NANOSECONDS);
+            Submission previous = pending.put(submission.intent.key(), submission);
+            if (previous != null) {
+                // Superseded by the new submission of the same intent
+                submission.completion.whenComplete((state, error) -> {
+                    if (error == null) {
+                        previous.completion.complete(state);
+                    } else {
+                        previous.completion.completeExceptionally(error);
+                    }
+                });
+            }
+            try {
+                intentService.submit(submission.intent);
+            } catch (RuntimeException e) {
+                pending.remove(submission.intent.key(), submission);
+                submission.completion.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Intent submitted and its completion.
+     */
+    private static final class Submission {
+
+        private final Intent intent;
+        private final CompletableFuture<IntentState> completion = new CompletableFuture<>();
+        private final long decidedNanos = System.nanoTime();
+        private volatile long submittedAt;
+        private volatile long submittedNanos;
+
+        private Submission(Intent intent) {
+            this.intent = intent;
+        }
+    }
+}
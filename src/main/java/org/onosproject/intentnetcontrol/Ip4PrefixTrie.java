@@ -0,0 +1,340 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Path-compressed binary trie mapping IPv4 prefixes to non-negative long
+ * values. Nodes live in parallel primitive arrays, so lookups walk at most
+ * one node per prefix bit without allocating.
+ * <p>
+ * The trie is not thread-safe; it is meant to be built by one thread and
+ * read by many once published.
+ * </p>
+ */
+
+final class Ip4PrefixTrie {
+
+    /**
+     * Value returned by the lookups when no prefix matches.
+     */
+    static final long NO_VALUE = -1;
+
+    /**
+     * Length returned by the longest-prefix match when no prefix matches.
+     */
+    static final int NO_MATCH = -1;
+
+    private static final int NIL = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Receives the prefixes of the trie.
+     */
+    interface PrefixConsumer {
+        void accept(int address, int length, long value);
+    }
+
+    /**
+     * Receives the longest match of each address of a batch.
+     */
+    interface MatchConsumer {
+        void accept(int index, int length, long value);
+    }
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private byte[] lengths = new byte[INITIAL_CAPACITY];
+    private int[] zeroChildren = new int[INITIAL_CAPACITY];
+    private int[] oneChildren = new int[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int nodes;
+    private int root = NIL;
+    private int size;
+
+    /**
+     * Maps a prefix to a value, replacing any previous value of the prefix.
+     *
+     * @param address address of the prefix, host bits are ignored
+     * @param length  prefix length
+     * @param value   non-negative value
+     */
+    void put(int address, int length, long value) {
+        checkArgument(0 <= length && length <= Integer.SIZE, "Invalid prefix length %s", length);
+        checkArgument(value >= 0, "Value must not be negative");
+        int key = mask(address, length);
+
+        int parent = NIL;
+        int node = root;
+        while (node != NIL) {
+            int nodeLength = lengths[node];
+            int common = commonLength(key, length, keys[node], nodeLength);
+            if (common == nodeLength && common == length) {
+                if (values[node] == NO_VALUE) {
+                    size++;
+                }
+                values[node] = value;
+                return;
+            }
+            if (common == nodeLength) {
+                parent = node;
+                node = child(node, bit(key, nodeLength));
+                continue;
+            }
+
+            int replacement;
+            if (common == length) {
+                // The new prefix covers the node
+                replacement = newNode(key, length, value);
+                setChild(replacement, bit(keys[node], length), node);
+            } else {
+                // The new prefix and the node diverge below their common bits
+                replacement = newNode(mask(key, common), common, NO_VALUE);
+                setChild(replacement, bit(keys[node], common), node);
+                setChild(replacement, bit(key, common), newNode(key, length, value));
+            }
+            link(parent, key, replacement);
+            size++;
+            return;
+        }
+
+        link(parent, key, newNode(key, length, value));
+        size++;
+    }
+
+    /**
+     * Gets the value of a prefix.
+     *
+     * @param address address of the prefix, host bits are ignored
+     * @param length  prefix length
+     * @return the value, or {@link #NO_VALUE} if the prefix is not in the trie
+     */
+    long get(int address, int length) {
+        int key = mask(address, length);
+        int node = root;
+        while (node != NIL) {
+            int nodeLength = lengths[node];
+            if (nodeLength > length || commonLength(key, length, keys[node], nodeLength) < nodeLength) {
+                return NO_VALUE;
+            }
+            if (nodeLength == length) {
+                return values[node];
+            }
+            node = child(node, bit(key, nodeLength));
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Finds the length of the longest prefix covering an address.
+     *
+     * @param address   IPv4 address
+     * @param maxLength longest prefix length to consider
+     * @return the prefix length, or {@link #NO_MATCH} if no prefix covers the address
+     */
+    int longestMatchLength(int address, int maxLength) {
+        int best = NO_MATCH;
+        int node = root;
+        while (node != NIL) {
+            int nodeLength = lengths[node];
+            if (nodeLength > maxLength
+                    || commonLength(address, Integer.SIZE, keys[node], nodeLength) < nodeLength) {
+                break;
+            }
+            if (values[node] != NO_VALUE) {
+                best = nodeLength;
+            }
+            if (nodeLength == Integer.SIZE) {
+                break;
+            }
+            node = child(node, bit(address, nodeLength));
+        }
+        return best;
+    }
+
+    /**
+     * Finds the longest prefix covering each address of a batch in a single
+     * walk of the trie. The sorted addresses are split between the children
+     * of each node, so every node is visited at most once for the batch.
+     *
+     * @param addresses IPv4 addresses sorted in unsigned order
+     * @param maxLength longest prefix length to consider
+     * @param consumer  receives the length and value of the longest match of
+     *                  each address, {@link #NO_MATCH} and {@link #NO_VALUE}
+     *                  if no prefix covers it
+     */
+    void longestMatches(int[] addresses, int maxLength, MatchConsumer consumer) {
+        longestMatches(root, addresses, 0, addresses.length, maxLength, NO_MATCH, NO_VALUE, consumer);
+    }
+
+    private void longestMatches(int node, int[] addresses, int from, int to, int maxLength,
+                                int bestLength, long bestValue, MatchConsumer consumer) {
+        if (from == to) {
+            return;
+        }
+        if (node == NIL || lengths[node] > maxLength) {
+            report(from, to, bestLength, bestValue, consumer);
+            return;
+        }
+
+        // The addresses under the node form a contiguous range of the batch
+        int nodeLength = lengths[node];
+        int key = keys[node];
+        int hostBits = nodeLength == Integer.SIZE ? 0 : -1 >>> nodeLength;
+        int first = lowerBound(addresses, from, to, key);
+        int last = upperBound(addresses, first, to, key | hostBits);
+        report(from, first, bestLength, bestValue, consumer);
+        report(last, to, bestLength, bestValue, consumer);
+
+        if (values[node] != NO_VALUE) {
+            bestLength = nodeLength;
+            bestValue = values[node];
+        }
+        if (nodeLength == Integer.SIZE) {
+            report(first, last, bestLength, bestValue, consumer);
+            return;
+        }
+        int split = lowerBound(addresses, first, last, key | (1 << (Integer.SIZE - 1 - nodeLength)));
+        longestMatches(zeroChildren[node], addresses, first, split, maxLength, bestLength, bestValue, consumer);
+        longestMatches(oneChildren[node], addresses, split, last, maxLength, bestLength, bestValue, consumer);
+    }
+
+    private static void report(int from, int to, int length, long value, MatchConsumer consumer) {
+        for (int i = from; i < to; i++) {
+            consumer.accept(i, length, value);
+        }
+    }
+
+    // Index of the first address not below the value
+    private static int lowerBound(int[] addresses, int from, int to, int value) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (Integer.compareUnsigned(addresses[middle], value) < 0) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    // Index of the first address above the value
+    private static int upperBound(int[] addresses, int from, int to, int value) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (Integer.compareUnsigned(addresses[middle], value) <= 0) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Passes every prefix and its value to the consumer.
+     *
+     * @param consumer prefix consumer
+     */
+    void forEach(PrefixConsumer consumer) {
+        for (int node = 0; node < nodes; node++) {
+            if (values[node] != NO_VALUE) {
+                consumer.accept(keys[node], lengths[node], values[node]);
+            }
+        }
+    }
+
+    /**
+     * Creates an independent copy of the trie.
+     *
+     * @return copy of the trie
+     */
+    Ip4PrefixTrie copy() {
+        Ip4PrefixTrie copy = new Ip4PrefixTrie();
+        int capacity = Math.max(INITIAL_CAPACITY, nodes);
+        copy.keys = Arrays.copyOf(keys, capacity);
+        copy.lengths = Arrays.copyOf(lengths, capacity);
+        copy.zeroChildren = Arrays.copyOf(zeroChildren, capacity);
+        copy.oneChildren = Arrays.copyOf(oneChildren, capacity);
+        copy.values = Arrays.copyOf(values, capacity);
+        copy.nodes = nodes;
+        copy.root = root;
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Gets the number of prefixes in the trie.
+     *
+     * @return number of prefixes
+     */
+    int size() {
+        return size;
+    }
+
+    private int newNode(int key, int length, long value) {
+        if (nodes == keys.length) {
+            int capacity = nodes * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            zeroChildren = Arrays.copyOf(zeroChildren, capacity);
+            oneChildren = Arrays.copyOf(oneChildren, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        int node = nodes++;
+        keys[node] = key;
+        lengths[node] = (byte) length;
+        zeroChildren[node] = NIL;
+        oneChildren[node] = NIL;
+        values[node] = value;
+        return node;
+    }
+
+    private void link(int parent, int key, int node) {
+        if (parent == NIL) {
+            root = node;
+        } else {
+            setChild(parent, bit(key, lengths[parent]), node);
+        }
+    }
+
+    private int child(int node, int bit) {
+        return bit == 0 ? zeroChildren[node] : oneChildren[node];
+    }
+
+    private void setChild(int node, int bit, int child) {
+        if (bit == 0) {
+            zeroChildren[node] = child;
+        } else {
+            oneChildren[node] = child;
+        }
+    }
+
+    private static int mask(int address, int length) {
+        return length == 0 ? 0 : address & (-1 << (Integer.SIZE - length));
+    }
+
+    private static int bit(int key, int index) {
+        return (key >>> (Integer.SIZE - 1 - index)) & 1;
+    }
+
+    private static int commonLength(int key1, int length1, int key2, int length2) {
+        return Math.min(Integer.numberOfLeadingZeros(key1 ^ key2), Math.min(length1, length2));
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Path-compressed binary trie mapping IPv6 prefixes to non-negative long
+ * values. Addresses are handled as their high and low 64 bits, and nodes
+ * live in parallel primitive arrays, so lookups walk at most one node per
+ * prefix bit without allocating.
+ * <p>
+ * The trie is not thread-safe; it is meant to be built by one thread and
+ * read by many once published.
+ * </p>
+ */
+
+final class Ip6PrefixTrie {
+
+    /**
+     * Value returned by the lookups when no prefix matches.
+     */
+    static final long NO_VALUE = -1;
+
+    /**
+     * Length returned by the longest-prefix match when no prefix matches.
+     */
+    static final int NO_MATCH = -1;
+
+    /**
+     * Length of an IPv6 address in bits.
+     */
+    static final int ADDRESS_LENGTH = 2 * Long.SIZE;
+
+    private static final int NIL = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Receives the prefixes of the trie.
+     */
+    interface PrefixConsumer {
+        void accept(long high, long low, int length, long value);
+    }
+
+    /**
+     * Receives the longest match of each address of a batch.
+     */
+    interface MatchConsumer {
+        void accept(int index, int length, long value);
+    }
+
+    private long[] highKeys = new long[INITIAL_CAPACITY];
+    private long[] lowKeys = new long[INITIAL_CAPACITY];
+    private byte[] lengths = new byte[INITIAL_CAPACITY];
+    private int[] zeroChildren = new int[INITIAL_CAPACITY];
+    private int[] oneChildren = new int[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+    private int nodes;
+    private int root = NIL;
+    private int size;
+
+    /**
+     * Maps a prefix to a value, replacing any previous value of the prefix.
+     *
+     * @param high   high 64 bits of the prefix address, host bits are ignored
+     * @param low    low 64 bits of the prefix address, host bits are ignored
+     * @param length prefix length
+     * @param value  non-negative value
+     */
+    void put(long high, long low, int length, long value) {
+        checkArgument(0 <= length && length <= ADDRESS_LENGTH, "Invalid prefix length %s", length);
+        checkArgument(value >= 0, "Value must not be negative");
+        long keyHigh = maskHigh(high, length);
+        long keyLow = maskLow(low, length);
+
+        int parent = NIL;
+        int node = root;
+        while (node != NIL) {
+            int nodeLength = length(node);
+            int common = commonLength(keyHigh, keyLow, length, node);
+            if (common == nodeLength && common == length) {
+                if (values[node] == NO_VALUE) {
+                    size++;
+                }
+                values[node] = value;
+                return;
+            }
+            if (common == nodeLength) {
+                parent = node;
+                node = child(node, bit(keyHigh, keyLow, nodeLength));
+                continue;
+            }
+
+            int replacement;
+            if (common == length) {
+                // The new prefix covers the node
+                replacement = newNode(keyHigh, keyLow, length, value);
+                setChild(replacement, bit(highKeys[node], lowKeys[node], length), node);
+            } else {
+                // The new prefix and the node diverge below their common bits
+                replacement = newNode(maskHigh(keyHigh, common), maskLow(keyLow, common), common, NO_VALUE);
+                setChild(replacement, bit(highKeys[node], lowKeys[node], common), node);
+                setChild(replacement, bit(keyHigh, keyLow, common), newNode(keyHigh, keyLow, length, value));
+            }
+            link(parent, keyHigh, keyLow, replacement);
+            size++;
+            return;
+        }
+
+        link(parent, keyHigh, keyLow, newNode(keyHigh, keyLow, length, value));
+        size++;
+    }
+
+    /**
+     * Gets the value of a prefix.
+     *
+     * @param high   high 64 bits of the prefix address, host bits are ignored
+     * @param low    low 64 bits of the prefix address, host bits are ignored
+     * @param length prefix length
+     * @return the value, or {@link #NO_VALUE} if the prefix is not in the trie
+     */
+    long get(long high, long low, int length) {
+        long keyHigh = maskHigh(high, length);
+        long keyLow = maskLow(low, length);
+        int node = root;
+        while (node != NIL) {
+            int nodeLength = length(node);
+            if (nodeLength > length || commonLength(keyHigh, keyLow, length, node) < nodeLength) {
+                return NO_VALUE;
+            }
+            if (nodeLength == length) {
+                return values[node];
+            }
+            node = child(node, bit(keyHigh, keyLow, nodeLength));
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Finds the length of the longest prefix covering an address.
+     *
+     * @param high      high 64 bits of the IPv6 address
+     * @param low       low 64 bits of the IPv6 address
+     * @param maxLength longest prefix length to consider
+     * @return the prefix length, or {@link #NO_MATCH} if no prefix covers the address
+     */
+    int longestMatchLength(long high, long low, int maxLength) {
+        int best = NO_MATCH;
+        int node = root;
+        while (node != NIL) {
+            int nodeLength = length(node);
+            if (nodeLength > maxLength
+                    || commonLength(high, low, ADDRESS_LENGTH, node) < nodeLength) {
+                break;
+            }
+            if (values[node] != NO_VALUE) {
+                best = nodeLength;
+            }
+            if (nodeLength == ADDRESS_LENGTH) {
+                break;
+            }
+            node = child(node, bit(high, low, nodeLength));
+        }
+        return best;
+    }
+
+    /**
+     * Finds the longest prefix of at most /64 covering each address of a
+     * batch in a single walk of the trie. The addresses are given by their
+     * high 64 bits; the sorted addresses are split between the children of
+     * each node, so every node is visited at most once for the batch.
+     *
+     * @param highs     high 64 bits of the IPv6 addresses, sorted in unsigned order
+     * @param maxLength longest prefix length to consider, at most 64
+     * @param consumer  receives the length and value of the longest match of
+     *                  each address, {@link #NO_MATCH} and {@link #NO_VALUE}
+     *                  if no prefix covers it
+     */
+    void longestMatches(long[] highs, int maxLength, MatchConsumer consumer) {
+        checkArgument(maxLength <= Long.SIZE, "Invalid batch prefix length %s", maxLength);
+        longestMatches(root, highs, 0, highs.length, maxLength, NO_MATCH, NO_VALUE, consumer);
+    }
+
+    private void longestMatches(int node, long[] highs, int from, int to, int maxLength,
+                                int bestLength, long bestValue, MatchConsumer consumer) {
+        if (from == to) {
+            return;
+        }
+        if (node == NIL || length(node) > maxLength) {
+            report(from, to, bestLength, bestValue, consumer);
+            return;
+        }
+
+        // The addresses under the node form a contiguous range of the batch
+        int nodeLength = length(node);
+        long key = highKeys[node];
+        long hostBits = nodeLength == Long.SIZE ? 0 : -1L >>> nodeLength;
+        int first = lowerBound(highs, from, to, key);
+        int last = upperBound(highs, first, to, key | hostBits);
+        report(from, first, bestLength, bestValue, consumer);
+        report(last, to, bestLength, bestValue, consumer);
+
+        if (values[node] != NO_VALUE) {
+            bestLength = nodeLength;
+            bestValue = values[node];
+        }
+        if (nodeLength == Long.SIZE) {
+            report(first, last, bestLength, bestValue, consumer);
+            return;
+        }
+        int split = lowerBound(highs, first, last, key | (1L << (Long.SIZE - 1 - nodeLength)));
+        longestMatches(zeroChildren[node], highs, first, split, maxLength, bestLength, bestValue, consumer);
+        longestMatches(oneChildren[node], highs, split, last, maxLength, bestLength, bestValue, consumer);
+    }
+
+    private static void report(int from, int to, int length, long value, MatchConsumer consumer) {
+        for (int i = from; i < to; i++) {
+            consumer.accept(i, length, value);
+        }
+    }
+
+    // Index of the first address not below the value
+    private static int lowerBound(long[] highs, int from, int to, long value) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (Long.compareUnsigned(highs[middle], value) < 0) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    // Index of the first address above the value
+    private static int upperBound(long[] highs, int from, int to, long value) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (Long.compareUnsigned(highs[middle], value) <= 0) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Passes every prefix and its value to the consumer.
+     *
+     * @param consumer prefix consumer
+     */
+    void forEach(PrefixConsumer consumer) {
+        for (int node = 0; node < nodes; node++) {
+            if (values[node] != NO_VALUE) {
+                consumer.accept(highKeys[node], lowKeys[node], length(node), values[node]);
+            }
+        }
+    }
+
+    /**
+     * Creates an independent copy of the trie.
+     *
+     * @return copy of the trie
+     */
+    Ip6PrefixTrie copy() {
+        Ip6PrefixTrie copy = new Ip6PrefixTrie();
+        int capacity = Math.max(INITIAL_CAPACITY, nodes);
+        copy.highKeys = Arrays.copyOf(highKeys, capacity);
+        copy.lowKeys = Arrays.copyOf(lowKeys, capacity);
+        copy.lengths = Arrays.copyOf(lengths, capacity);
+        copy.zeroChildren = Arrays.copyOf(zeroChildren, capacity);
+        copy.oneChildren = Arrays.copyOf(oneChildren, capacity);
+        copy.values = Arrays.copyOf(values, capacity);
+        copy.nodes = nodes;
+        copy.root = root;
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Gets the number of prefixes in the trie.
+     *
+     * @return number of prefixes
+     */
+    int size() {
+        return size;
+    }
+
+    private int newNode(long high, long low, int length, long value) {
+        if (nodes == highKeys.length) {
+            int capacity = nodes * 2;
+            highKeys = Arrays.copyOf(highKeys, capacity);
+            lowKeys = Arrays.copyOf(lowKeys, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            zeroChildren = Arrays.copyOf(zeroChildren, capacity);
+            oneChildren = Arrays.copyOf(oneChildren, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        int node = nodes++;
+        highKeys[node] = high;
+        lowKeys[node] = low;
+        // A /128 does not fit a signed byte, lengths are read back unsigned
+        lengths[node] = (byte) length;
+        zeroChildren[node] = NIL;
+        oneChildren[node] = NIL;
+        values[node] = value;
+        return node;
+    }
+
+    private int length(int node) {
+        return lengths[node] & 0xff;
+    }
+
+    private void link(int parent, long high, long low, int node) {
+        if (parent == NIL) {
+            root = node;
+        } else {
+            setChild(parent, bit(high, low, length(parent)), node);
+        }
+    }
+
+    private int child(int node, int bit) {
+        return bit == 0 ? zeroChildren[node] : oneChildren[node];
+    }
+
+    private void setChild(int node, int bit, int child) {
+        if (bit == 0) {
+            zeroChildren[node] = child;
+        } else {
+            oneChildren[node] = child;
+        }
+    }
+
+    private int commonLength(long high, long low, int length, int node) {
+        long highDiff = high ^ highKeys[node];
+        int common = highDiff != 0 ? Long.numberOfLeadingZeros(highDiff)
+                : Long.SIZE + Long.numberOfLeadingZeros(low ^ lowKeys[node]);
+        return Math.min(common, Math.min(length, length(node)));
+    }
+
+    private static long maskHigh(long high, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        return length >= Long.SIZE ? high : high & (-1L << (Long.SIZE - length));
+    }
+
+    private static long maskLow(long low, int length) {
+        return length <= Long.SIZE ? 0 : low & (-1L << (ADDRESS_LENGTH - length));
+    }
+
+    private static int bit(long high, long low, int index) {
+        return index < Long.SIZE ? (int) (high >>> (Long.SIZE - 1 - index)) & 1
+                : (int) (low >>> (ADDRESS_LENGTH - 1 - index)) & 1;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentEvent;
+import org.onosproject.net.intent.IntentService;
+import org.onosproject.net.intent.Key;
+import org.onosproject.net.intent.MultiPointToSinglePointIntent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the multi-point-to-single-point intents installed locally by
+ * SDN-IP, keyed by route prefix. SDN-IP keys each of its intents with the
+ * prefix it routes, so the index only records the intent key of each
+ * prefix and the intent itself is fetched by key from the intent service.
+ * <p>
+ * The index is loaded with one scan of the installed intents, then kept
+ * current from the intent events.
+ * </p>
+ */
+
+final class LocalIntentIndex {
+
+    private final IntentService intentService;
+    private final String appName;
+    private final Map<String, Key> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an intent index.
+     *
+     * @param intentService intent service
+     * @param appName       name of the application whose intents are indexed
+     */
+    LocalIntentIndex(IntentService intentService, String appName) {
+        this.intentService = intentService;
+        this.appName = appName;
+    }
+
+    /**
+     * Loads the index from the intents currently installed.
+     */
+    void load() {
+        keys.clear();
+        for (Intent intent : intentService.getIntents()) {
+            if (isIndexed(intent)) {
+                keys.put(intent.key().toString(), intent.key());
+            }
+        }
+    }
+
+    /**
+     * Forgets every indexed intent.
+     */
+    void clear() {
+        keys.clear();
+    }
+
+    /**
+     * Updates the index from an intent event.
+     *
+     * @param event intent event
+     */
+    void update(IntentEvent event) {
+        Intent intent = event.subject();
+        if (!isIndexed(intent)) {
+            return;
+        }
+        switch (event.type()) {
+            case WITHDRAWN:
+            case PURGED:
+                keys.remove(intent.key().toString());
+                break;
+            default:
+                keys.put(intent.key().toString(), intent.key());
+                break;
+        }
+    }
+
+    /**
+     * Gets the intent installed for a route prefix.
+     *
+     * @param route route prefix
+     * @return the multi-point-to-single-point intent, or null if there is none
+     */
+    MultiPointToSinglePointIntent get(String route) {
+        Key key = keys.get(route);
+        if (key == null) {
+            return null;
+        }
+        Intent intent = intentService.getIntent(key);
+        return intent instanceof MultiPointToSinglePointIntent ? (MultiPointToSinglePointIntent) intent : null;
+    }
+
+    /**
+     * Gets the number of indexed intents.
+     *
+     * @return number of intents
+     */
+    int size() {
+        return keys.size();
+    }
+
+    private boolean isIndexed(Intent intent) {
+        return intent instanceof MultiPointToSinglePointIntent && appName.equals(intent.appId().name());
+    }
+}
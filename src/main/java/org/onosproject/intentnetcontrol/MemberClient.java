@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client of the REST API of a member controller, shared by all the calls
+ * to the controller.
+ * <p>
+ * Every response is read to the end and its stream closed, and connections
+ * are never disconnected, so that the connections return to the keep-alive
+ * cache of the JDK and the next call to the controller reuses them rather
+ * than opening a new one. The credentials are sent preemptively as a Basic
+ * authorization header of each request, rather than through the JVM-wide
+ * authenticator, and the number of concurrent calls is bounded by the
+ * number of connections the keep-alive cache keeps per controller.
+ * </p>
+ */
+
+public final class MemberClient {
+
+    /**
+     * Maximum number of concurrent calls to a controller, the default
+     * number of idle connections the JDK keeps alive per destination.
+     */
+    public static final int MAX_CONCURRENT_REQUESTS = 5;
+
+    private static final int REST_PORT = 8181;
+    private static final int TIMEOUT = 5000;
+    private static final int BUFFER_SIZE = 4096;
+
+    private final String ip;
+    private final String baseUrl;
+    private final String authorization;
+    private final Semaphore permits = new Semaphore(MAX_CONCURRENT_REQUESTS, true);
+
+    /**
+     * Creates the client of a controller.
+     *
+     * @param ip       controller's IP address
+     * @param username controller's username
+     * @param password controller's password
+     */
+    public MemberClient(String ip, String username, String password) {
+        this(ip, REST_PORT, username, password);
+    }
+
+    MemberClient(String ip, int port, String username, String password) {
+        this.ip = ip;
+        this.baseUrl = "http://" + ip + ":" + port;
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates the client of a member controller.
+     *
+     * @param controller member controller
+     * @return the client
+     */
+    public static MemberClient of(IntentNetworkingControlConfig.ControllerConfig controller) {
+        return new MemberClient(controller.ip(), controller.username(), controller.password());
+    }
+
+    /**
+     * Gets the IP address of the controller.
+     *
+     * @return IP address
+     */
+    public String ip() {
+        return ip;
+    }
+
+    /**
+     * Gets a resource of the REST API.
+     *
+     * @param path path of the resource
+     * @return the response
+     * @throws IOException if the call fails
+     */
+    public Response get(String path) throws IOException {
+        return request("GET", path, null);
+    }
+
+    /**
+     * Posts a JSON document to a resource of the REST API.
+     *
+     * @param path path of the resource
+     * @param json JSON document
+     * @return the response
+     * @throws IOException if the call fails
+     */
+    public Response post(String path, String json) throws IOException {
+        return request("POST", path, json);
+    }
+
+    /**
+     * Deletes a resource of the REST API.
+     *
+     * @param path path of the resource
+     * @return the response
+     * @throws IOException if the call fails
+     */
+    public Response delete(String path) throws IOException {
+        return request("DELETE", path, null);
+    }
+
+    private Response request(String method, String path, String json) throws IOException {
+        try {
+            if (!permits.tryAcquire(TIMEOUT, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Too many concurrent calls to " + ip);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to call " + ip);
+        }
+        try {
+            HttpURLConnection urlConnection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            urlConnection.setRequestMethod(method);
+            urlConnection.setRequestProperty("Authorization", authorization);
+            urlConnection.setConnectTimeout(TIMEOUT);
+            urlConnection.setReadTimeout(TIMEOUT);
+            if (json != null) {
+                byte[] content = json.getBytes(StandardCharsets.UTF_8);
+                urlConnection.setDoOutput(true);
+                urlConnection.setRequestProperty("Content-Type", "application/json");
+                urlConnection.setFixedLengthStreamingMode(content.length);
+                try (OutputStream os = urlConnection.getOutputStream()) {
+                    os.write(content);
+                }
+            }
+            int status = urlConnection.getResponseCode();
+            InputStream is = status < HttpURLConnection.HTTP_BAD_REQUEST ?
+                    urlConnection.getInputStream() : urlConnection.getErrorStream();
+            return new Response(status, read(is));
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static String read(InputStream is) throws IOException {
+        if (is == null) {
+            return "";
+        }
+        try (InputStream in = is) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                body.write(buffer, 0, count);
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("ip", ip)
+                .add("available", permits.availablePermits())
+                .toString();
+    }
+
+    /**
+     * Response of a call to the REST API.
+     */
+    public static final class Response {
+
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        /**
+         * Gets the HTTP status code of the response.
+         *
+         * @return status code
+         */
+        public int status() {
+            return status;
+        }
+
+        /**
+         * Gets the body of the response.
+         *
+         * @return body, empty if there is none
+         */
+        public String body() {
+            return body;
+        }
+    }
+}
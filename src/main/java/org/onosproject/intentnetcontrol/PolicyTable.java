@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import org.onlab.packet.Ip6Address;
+import org.onlab.packet.IpPrefix;
+
+/**
+ * Immutable lookup table of the policies configured for route prefixes.
+ * A route prefix gets the policy of the longest configured prefix covering
+ * it, or {@link ControlPolicy#REDIRECT} if there is none.
+ */
+
+final class PolicyTable {
+
+    /**
+     * Table without any policy.
+     */
+    static final PolicyTable EMPTY = new PolicyTable(new Ip4PrefixTrie(), new Ip6PrefixTrie());
+
+    private static final ControlPolicy[] POLICIES = ControlPolicy.values();
+
+    private final Ip4PrefixTrie policies4;
+    private final Ip6PrefixTrie policies6;
+
+    private PolicyTable(Ip4PrefixTrie policies4, Ip6PrefixTrie policies6) {
+        this.policies4 = policies4;
+        this.policies6 = policies6;
+    }
+
+    /**
+     * Builds the table of the policies of a configuration.
+     *
+     * @param config member controllers configuration, may be null
+     * @return policy table
+     */
+    static PolicyTable of(IntentNetworkingControlConfig config) {
+        if (config == null) {
+            return EMPTY;
+        }
+        Ip4PrefixTrie policies4 = new Ip4PrefixTrie();
+        Ip6PrefixTrie policies6 = new Ip6PrefixTrie();
+        for (IntentNetworkingControlConfig.PolicyConfig policy : config.policies()) {
+            IpPrefix prefix = policy.prefix();
+            if (prefix.isIp4()) {
+                policies4.put(prefix.address().getIp4Address().toInt(), prefix.prefixLength(),
+                              policy.policy().ordinal());
+            } else {
+                Ip6Address address = prefix.address().getIp6Address();
+                policies6.put(RouteIndex.high(address), RouteIndex.low(address), prefix.prefixLength(),
+                              policy.policy().ordinal());
+            }
+        }
+        return new PolicyTable(policies4, policies6);
+    }
+
+    /**
+     * Gets the policy of a route prefix.
+     *
+     * @param prefix route prefix
+     * @return the policy of the longest configured prefix covering it
+     */
+    ControlPolicy policy(IpPrefix prefix) {
+        long policy;
+        if (prefix.isIp4()) {
+            int address = prefix.address().getIp4Address().toInt();
+            int length = policies4.longestMatchLength(address, prefix.prefixLength());
+            policy = length == Ip4PrefixTrie.NO_MATCH ? Ip4PrefixTrie.NO_VALUE : policies4.get(address, length);
+        } else {
+            Ip6Address address = prefix.address().getIp6Address();
+            long high = RouteIndex.high(address);
+            long low = RouteIndex.low(address);
+            int length = policies6.longestMatchLength(high, low, prefix.prefixLength());
+            policy = length == Ip6PrefixTrie.NO_MATCH ? Ip6PrefixTrie.NO_VALUE : policies6.get(high, low, length);
+        }
+        return policy < 0 ? ControlPolicy.REDIRECT : POLICIES[(int) policy];
+    }
+
+    /**
+     * Gets the number of configured policies.
+     *
+     * @return number of policies
+     */
+    int size() {
+        return policies4.size() + policies6.size();
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import java.util.Arrays;
+
+/**
+ * Detects traffic surges per subnet from successive samples of the
+ * cumulative packet and byte counters reported by the visibility server,
+ * or from the counts of the flow records added since the previous sample,
+ * which are summed into running totals.
+ * <p>
+ * Each tracked subnet keeps an exponentially weighted moving average of
+ * its packet and byte rates in a fixed-size slot of primitive arrays, so the
+ * memory footprint is bounded by the number of subnets the detector is
+ * allowed to track. Subnets not sampled for a while are evicted.
+ * Not thread-safe.
+ * </p>
+ */
+
+final class RateDetector {
+
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private final int maxSubnets;
+    private final int capacity;
+    private final long[] keys;
+    private final boolean[] used;
+    private final long[] packetTotals;
+    private final long[] byteTotals;
+    private final long[] lastPackets;
+    private final long[] lastBytes;
+    private final long[] lastSeen;
+    private final double[] packetRates;
+    private final double[] byteRates;
+    private int size;
+
+    private volatile double packetRateThreshold;
+    private volatile double byteRateThreshold;
+    private volatile double timeConstant;
+
+    /**
+     * Creates a rate detector.
+     *
+     * @param maxSubnets          maximum number of subnets tracked at once
+     * @param packetRateThreshold packet rate in packets per second above which
+     *                            a subnet is considered surging, 0 to disable
+     * @param byteRateThreshold   byte rate in bytes per second above which
+     *                            a subnet is considered surging, 0 to disable
+     * @param timeConstant        time constant of the moving averages in seconds
+     */
+    RateDetector(int maxSubnets, double packetRateThreshold,
+                 double byteRateThreshold, double timeConstant) {
+        this.maxSubnets = maxSubnets;
+        this.capacity = Integer.highestOneBit(Math.max(maxSubnets, 1) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.used = new boolean[capacity];
+        this.packetTotals = new long[capacity];
+        this.byteTotals = new long[capacity];
+        this.lastPackets = new long[capacity];
+        this.lastBytes = new long[capacity];
+        this.lastSeen = new long[capacity];
+        this.packetRates = new double[capacity];
+        this.byteRates = new double[capacity];
+        configure(packetRateThreshold, byteRateThreshold, timeConstant);
+    }
+
+    /**
+     * Updates the thresholds and time constant of the detector.
+     *
+     * @param packetRateThreshold packet rate threshold in packets per second, 0 to disable
+     * @param byteRateThreshold   byte rate threshold in bytes per second, 0 to disable
+     * @param timeConstant        time constant of the moving averages in seconds
+     */
+    void configure(double packetRateThreshold, double byteRateThreshold, double timeConstant) {
+        this.packetRateThreshold = packetRateThreshold;
+        this.byteRateThreshold = byteRateThreshold;
+        this.timeConstant = Math.max(timeConstant, 1.0 / MILLIS_PER_SECOND);
+    }
+
+    /**
+     * Feeds a sample of the cumulative counters of a subnet and checks
+     * whether the subnet is surging.
+     *
+     * @param subnet  subnet key
+     * @param packets cumulative packet count of the subnet
+     * @param bytes   cumulative byte count of the subnet
+     * @param now     sample time in milliseconds
+     * @return true if the smoothed packet or byte rate is above its threshold
+     */
+    boolean update(long subnet, long packets, long bytes, long now) {
+        int slot = slot(subnet);
+        if (!used[slot]) {
+            if (size >= maxSubnets) {
+                return false;
+            }
+            used[slot] = true;
+            keys[slot] = subnet;
+            packetTotals[slot] = packets;
+            byteTotals[slot] = bytes;
+            lastPackets[slot] = packets;
+            lastBytes[slot] = bytes;
+            lastSeen[slot] = now;
+            packetRates[slot] = 0;
+            byteRates[slot] = 0;
+            size++;
+            return false;
+        }
+
+        packetTotals[slot] = packets;
+        byteTotals[slot] = bytes;
+        long elapsed = now - lastSeen[slot];
+        if (elapsed <= 0) {
+            // Counted in the next interval, measured from the last sample
+            return isSurging(slot);
+        }
+
+        long packetDelta = packets - lastPackets[slot];
+        long byteDelta = bytes - lastBytes[slot];
+        lastPackets[slot] = packets;
+        lastBytes[slot] = bytes;
+        lastSeen[slot] = now;
+
+        if (packetDelta >= 0 && byteDelta >= 0) {
+            // Counters going backwards mean flows expired; only rebase then
+            double seconds = elapsed / MILLIS_PER_SECOND;
+            double alpha = 1 - Math.exp(-seconds / timeConstant);
+            packetRates[slot] += alpha * (packetDelta / seconds - packetRates[slot]);
+            byteRates[slot] += alpha * (byteDelta / seconds - byteRates[slot]);
+        }
+        return isSurging(slot);
+    }
+
+    /**
+     * Feeds the counts of a subnet since its previous sample and checks
+     * whether the subnet is surging. The counts are added to the running
+     * totals of the subnet, so a subnet missing from some samples is
+     * measured over the whole time since it was last sampled.
+     *
+     * @param subnet  subnet key
+     * @param packets packets counted since the previous sample
+     * @param bytes   bytes counted since the previous sample
+     * @param now     sample time in milliseconds
+     * @return true if the smoothed packet or byte rate is above its threshold
+     */
+    boolean increment(long subnet, long packets, long bytes, long now) {
+        int slot = slot(subnet);
+        if (!used[slot]) {
+            return update(subnet, packets, bytes, now);
+        }
+        return update(subnet, packetTotals[slot] + packets, byteTotals[slot] + bytes, now);
+    }
+
+    /**
+     * Gets the smoothed packet rate of a subnet.
+     *
+     * @param subnet subnet key
+     * @return packet rate in packets per second, 0 if the subnet is not tracked
+     */
+    double packetRate(long subnet) {
+        int slot = slot(subnet);
+        return used[slot] ? packetRates[slot] : 0;
+    }
+
+    /**
+     * Gets the smoothed byte rate of a subnet.
+     *
+     * @param subnet subnet key
+     * @return byte rate in bytes per second, 0 if the subnet is not tracked
+     */
+    double byteRate(long subnet) {
+        int slot = slot(subnet);
+        return used[slot] ? byteRates[slot] : 0;
+    }
+
+    /**
+     * Gets the number of tracked subnets.
+     *
+     * @return number of subnets
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Stops tracking the subnets that were not sampled since the given time.
+     *
+     * @param oldest time in milliseconds before which subnets are evicted
+     */
+    void expire(long oldest) {
+        for (int i = 0; i < capacity; i++) {
+            while (used[i] && lastSeen[i] < oldest) {
+                remove(i);
+            }
+        }
+    }
+
+    /**
+     * Stops tracking all subnets.
+     */
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private boolean isSurging(int slot) {
+        return (packetRateThreshold > 0 && packetRates[slot] >= packetRateThreshold)
+                || (byteRateThreshold > 0 && byteRates[slot] >= byteRateThreshold);
+    }
+
+    private int slot(long key) {
+        int mask = capacity - 1;
+        int slot = mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Backward-shift deletion keeps the probe sequences intact without tombstones
+    private void remove(int slot) {
+        int mask = capacity - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (used[next]) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                move(next, hole);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[hole] = false;
+        size--;
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        packetTotals[to] = packetTotals[from];
+        byteTotals[to] = byteTotals[from];
+        lastPackets[to] = lastPackets[from];
+        lastBytes[to] = lastBytes[from];
+        lastSeen[to] = lastSeen[from];
+        packetRates[to] = packetRates[from];
+        byteRates[to] = byteRates[from];
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.onlab.packet.IpPrefix;
+import org.onosproject.net.intent.Key;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory table of the redirects currently installed by the daemon,
+ * keyed by route prefix, with a reverse index from the redirect intent keys
+ * so that intent events find their redirect without a scan. Lookups are
+ * lock-free, updates are serialized to keep both maps consistent.
+ */
+
+final class RedirectTable {
+
+    private final Map<IpPrefix, ActiveRedirect> redirects = new ConcurrentHashMap<>();
+    private final Map<Key, IpPrefix> prefixes = new ConcurrentHashMap<>();
+
+    /**
+     * Checks whether a redirect is in place for a route prefix.
+     *
+     * @param prefix route prefix
+     * @return true if the prefix is already redirected
+     */
+    boolean isRedirected(IpPrefix prefix) {
+        return redirects.containsKey(prefix);
+    }
+
+    /**
+     * Gets the redirect installed for a route prefix.
+     *
+     * @param prefix route prefix
+     * @return the active redirect, or null if there is none
+     */
+    ActiveRedirect get(IpPrefix prefix) {
+        return redirects.get(prefix);
+    }
+
+    /**
+     * Records a redirect, replacing any previous one for the same prefix.
+     *
+     * @param redirect installed redirect
+     */
+    synchronized void add(ActiveRedirect redirect) {
+        ActiveRedirect previous = redirects.put(redirect.prefix(), redirect);
+        if (previous != null) {
+            prefixes.remove(previous.intentKey(), previous.prefix());
+        }
+        prefixes.put(redirect.intentKey(), redirect.prefix());
+    }
+
+    /**
+     * Forgets the redirect of a route prefix.
+     *
+     * @param prefix route prefix
+     * @return the removed redirect, or null if there was none
+     */
+    synchronized ActiveRedirect remove(IpPrefix prefix) {
+        ActiveRedirect redirect = redirects.remove(prefix);
+        if (redirect != null) {
+            prefixes.remove(redirect.intentKey(), prefix);
+        }
+        return redirect;
+    }
+
+    /**
+     * Forgets the redirect installed with the given intent key.
+     *
+     * @param intentKey key of the redirect intent
+     * @return the removed redirect, or null if there was none
+     */
+    synchronized ActiveRedirect remove(Key intentKey) {
+        IpPrefix prefix = prefixes.remove(intentKey);
+        return prefix == null ? null : redirects.remove(prefix);
+    }
+
+    /**
+     * Gets all active redirects.
+     *
+     * @return unmodifiable view of the active redirects
+     */
+    Collection<ActiveRedirect> redirects() {
+        return Collections.unmodifiableCollection(redirects.values());
+    }
+
+    /**
+     * Gets the number of active redirects.
+     *
+     * @return number of redirects
+     */
+    int size() {
+        return redirects.size();
+    }
+
+    /**
+     * Forgets all redirects.
+     */
+    synchronized void clear() {
+        redirects.clear();
+        prefixes.clear();
+    }
+}
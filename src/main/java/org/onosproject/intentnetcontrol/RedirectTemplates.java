@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.onosproject.core.ApplicationId;
+import org.onosproject.net.FilteredConnectPoint;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.intent.Key;
+import org.onosproject.net.intent.PointToPointIntent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prebuilt redirect intents by edge point and sink point. Each pair of
+ * points keeps an intent builder already holding every part of the redirect
+ * but its key, so that a redirect only sets its key before being built.
+ * The number of pairs is bounded by the edge points of the SDN-IP peers
+ * times the sink points of the member controllers.
+ */
+
+final class RedirectTemplates {
+
+    private final ApplicationId appId;
+    private final int priority;
+    private final Map<FilteredConnectPoint, Map<FilteredConnectPoint, Template>> templates =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates the redirect templates of an application.
+     *
+     * @param appId    application of the redirect intents
+     * @param priority priority of the redirect intents
+     */
+    RedirectTemplates(ApplicationId appId, int priority) {
+        this.appId = appId;
+        this.priority = priority;
+    }
+
+    /**
+     * Creates the intent redirecting the traffic entering at an edge point
+     * to a sink point.
+     *
+     * @param key     key of the redirect intent
+     * @param ingress edge point the redirected traffic enters at
+     * @param sink    sink point the traffic is redirected to
+     * @return redirect intent
+     */
+    PointToPointIntent redirect(Key key, FilteredConnectPoint ingress, FilteredConnectPoint sink) {
+        return templates.computeIfAbsent(sink, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(ingress, i -> new Template(i, sink))
+                .redirect(key);
+    }
+
+    /**
+     * Gets the number of templates.
+     *
+     * @return number of templates
+     */
+    int size() {
+        return templates.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Forgets every template, when the sink points are reconfigured.
+     */
+    void clear() {
+        templates.clear();
+    }
+
+    /**
+     * Builder of the redirects from an edge point to a sink point, shared by
+     * the activation workers.
+     */
+    private final class Template {
+
+        private final PointToPointIntent.Builder builder;
+
+        private Template(FilteredConnectPoint ingress, FilteredConnectPoint sink) {
+            this.builder = PointToPointIntent.builder()
+                    .appId(appId)
+                    .selector(DefaultTrafficSelector.emptySelector())
+                    .treatment(DefaultTrafficTreatment.emptyTreatment())
+                    .filteredIngressPoint(ingress)
+                    .filteredEgressPoint(sink)
+                    .priority(priority);
+        }
+
+        private synchronized PointToPointIntent redirect(Key key) {
+            return builder.key(key).build();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import com.google.common.base.MoreObjects;
+import org.onlab.packet.IpPrefix;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Announced route prefix a subnet resolves to, with its origin AS number
+ * and the member controller responsible for that AS.
+ */
+
+public final class ResolvedPrefix {
+
+    private final IpPrefix prefix;
+    private final long asn;
+    private final IntentNetworkingControlConfig.ControllerConfig controller;
+
+    /**
+     * Creates a resolved prefix.
+     *
+     * @param prefix     announced route prefix
+     * @param asn        origin AS number of the prefix
+     * @param controller member controller of the AS, or null if none is configured
+     */
+    public ResolvedPrefix(IpPrefix prefix,
+                          long asn,
+                          IntentNetworkingControlConfig.ControllerConfig controller) {
+        this.prefix = checkNotNull(prefix);
+        this.asn = asn;
+        this.controller = controller;
+    }
+
+    /**
+     * Gets the announced route prefix.
+     *
+     * @return route prefix
+     */
+    public IpPrefix prefix() {
+        return prefix;
+    }
+
+    /**
+     * Gets the origin AS number of the prefix.
+     *
+     * @return AS number, or IntentNetworkingControlService.NO_ASN if the
+     * route has no AS path
+     */
+    public long asn() {
+        return asn;
+    }
+
+    /**
+     * Gets the member controller responsible for the origin AS.
+     *
+     * @return controller configuration, or null if none is configured
+     */
+    public IntentNetworkingControlConfig.ControllerConfig controller() {
+        return controller;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("prefix", prefix)
+                .add("asn", asn)
+                .add("controller", controller == null ? null : controller.ip())
+                .toString();
+    }
+}
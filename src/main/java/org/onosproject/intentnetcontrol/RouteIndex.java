@@ -0,0 +1,518 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.onlab.packet.Ip4Prefix;
+import org.onlab.packet.Ip6Address;
+import org.onlab.packet.Ip6Prefix;
+import org.onlab.packet.IpPrefix;
+import org.onosproject.routeservice.RouteEvent;
+import org.onosproject.routeservice.RouteListener;
+import org.onosproject.routeservice.RouteService;
+import org.onosproject.routing.bgp.BgpInfoService;
+import org.onosproject.routing.bgp.BgpRouteEntry;
+import org.onosproject.routing.bgp.BgpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.onosproject.routing.bgp.BgpConstants.Update.AsPath.AS_SEQUENCE;
+import static org.onosproject.routing.bgp.BgpConstants.Update.AsPath.AS_SET;
+
+/**
+ * Index of the IPv4 and IPv6 routes of the BGP RIB by prefix, giving the
+ * origin AS number of each announced prefix. The index covers the best route
+ * of each prefix across all BGP sessions, so that prefixes learned from any
+ * peer are resolved. Each address family has its own trie with the same
+ * lookup semantics.
+ * <p>
+ * The index is built once from the RIB, then kept current from the route
+ * events: the prefixes they touch are resolved again on the next refresh
+ * and recorded in a small overlay on top of the base tries. The events are
+ * raised by the route service, into which the BGP speaker of the routing
+ * application publishes each route it selects as best; the speaker updates
+ * its best routes before publishing them, so updated prefixes are resolved
+ * from the same best routes as a rebuild. Events of routes from other
+ * sources only make their prefixes be resolved again. An overlay is
+ * folded into the base once it grows too large, and the index is only
+ * rebuilt from the RIB when the set of BGP sessions changes. Lookups read
+ * the last published snapshot without locking.
+ * </p>
+ */
+
+final class RouteIndex {
+
+    /**
+     * AS number returned when a prefix is not announced or has no AS path.
+     */
+    static final long NO_ASN = IntentNetworkingControlService.NO_ASN;
+
+    private static final Logger log = LoggerFactory.getLogger(RouteIndex.class);
+
+    // Overlay value of a prefix that is no longer announced
+    private static final long WITHDRAWN = Long.MAX_VALUE;
+    private static final int MIN_OVERLAY_LIMIT = 1024;
+    private static final int OVERLAY_RATIO = 16;
+
+    /**
+     * Receives the announced prefix covering each subnet of a batch.
+     */
+    interface MatchConsumer {
+        void accept(int index, IpPrefix prefix, long asn);
+    }
+
+    private final BgpInfoService bgpInfoService;
+    private final RouteService routeService;
+    private final InternalRouteListener routeListener = new InternalRouteListener();
+
+    private final Set<IpPrefix> updatedPrefixes = ConcurrentHashMap.newKeySet();
+    private final Set<BgpSession> indexedSessions = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private boolean built;
+
+    /**
+     * Creates a route index.
+     *
+     * @param bgpInfoService BGP information service
+     * @param routeService   route service notifying the route updates,
+     *                       including the best routes of the BGP speaker
+     */
+    RouteIndex(BgpInfoService bgpInfoService, RouteService routeService) {
+        this.bgpInfoService = bgpInfoService;
+        this.routeService = routeService;
+    }
+
+    /**
+     * Starts tracking the route updates. The index is rebuilt from the RIB
+     * on the next refresh.
+     */
+    synchronized void activate() {
+        routeService.addListener(routeListener);
+        built = false;
+    }
+
+    /**
+     * Stops tracking the route updates.
+     */
+    synchronized void deactivate() {
+        routeService.removeListener(routeListener);
+        updatedPrefixes.clear();
+    }
+
+    /**
+     * Checks whether the index holds no route, before the RIB is first
+     * read or while the BGP sessions are still coming up.
+     *
+     * @return true if no route is indexed
+     */
+    boolean isEmpty() {
+        Snapshot current = snapshot;
+        return current.base4.size() == 0 && current.overlay4.size() == 0
+                && current.base6.size() == 0 && current.overlay6.size() == 0;
+    }
+
+    /**
+     * Gets the origin AS number of an announced prefix.
+     *
+     * @param prefix route prefix
+     * @return the origin AS number, or {@link #NO_ASN} if the prefix is not
+     * announced or has no AS path
+     */
+    long originAsn(IpPrefix prefix) {
+        if (prefix.isIp4()) {
+            return snapshot.get4(prefix.address().getIp4Address().toInt(), prefix.prefixLength());
+        }
+        Ip6Address address = prefix.address().getIp6Address();
+        return snapshot.get6(high(address), low(address), prefix.prefixLength());
+    }
+
+    /**
+     * Finds the longest announced prefix covering each IPv4 subnet of a
+     * batch, joining the sorted subnets with the index in one walk of each
+     * trie rather than one lookup per subnet.
+     *
+     * @param addresses IPv4 subnet addresses sorted in unsigned order
+     * @param maxLength longest prefix length to consider
+     * @param minLength shortest prefix length to consider
+     * @param consumer  receives the covering prefix and its origin AS number
+     *                  of each subnet covered by an announced prefix
+     */
+    void longestMatches(int[] addresses, int maxLength, int minLength, MatchConsumer consumer) {
+        Snapshot current = snapshot;
+        int[] lengths = new int[addresses.length];
+        long[] asns = new long[addresses.length];
+        current.base4.longestMatches(addresses, maxLength, (i, length, asn) -> {
+            lengths[i] = length;
+            asns[i] = asn;
+        });
+        current.overlay4.longestMatches(addresses, maxLength, (i, length, asn) -> {
+            if (length != Ip4PrefixTrie.NO_MATCH && length >= lengths[i]) {
+                lengths[i] = length;
+                asns[i] = asn;
+            }
+        });
+
+        for (int i = 0; i < addresses.length; i++) {
+            int length = lengths[i];
+            long asn = asns[i];
+            if (asn == WITHDRAWN) {
+                // Withdrawn since the base was built, fall back to a shorter prefix
+                length = current.longestMatchLength4(addresses[i], maxLength);
+                asn = length == Ip4PrefixTrie.NO_MATCH ? NO_ASN : current.get4(addresses[i], length);
+            }
+            if (length != Ip4PrefixTrie.NO_MATCH && length >= minLength) {
+                consumer.accept(i, Ip4Prefix.valueOf(addresses[i], length), asn);
+            }
+        }
+    }
+
+    /**
+     * Finds the longest announced prefix of at most /64 covering each IPv6
+     * subnet of a batch, as for IPv4 subnets.
+     *
+     * @param highs     high 64 bits of the IPv6 subnets, sorted in unsigned order
+     * @param maxLength longest prefix length to consider, at most 64
+     * @param minLength shortest prefix length to consider
+     * @param consumer  receives the covering prefix and its origin AS number
+     *                  of each subnet covered by an announced prefix
+     */
+    void longestMatches(long[] highs, int maxLength, int minLength, MatchConsumer consumer) {
+        Snapshot current = snapshot;
+        int[] lengths = new int[highs.length];
+        long[] asns = new long[highs.length];
+        current.base6.longestMatches(highs, maxLength, (i, length, asn) -> {
+            lengths[i] = length;
+            asns[i] = asn;
+        });
+        current.overlay6.longestMatches(highs, maxLength, (i, length, asn) -> {
+            if (length != Ip6PrefixTrie.NO_MATCH && length >= lengths[i]) {
+                lengths[i] = length;
+                asns[i] = asn;
+            }
+        });
+
+        for (int i = 0; i < highs.length; i++) {
+            int length = lengths[i];
+            long asn = asns[i];
+            if (asn == WITHDRAWN) {
+                // Withdrawn since the base was built, fall back to a shorter prefix
+                length = current.longestMatchLength6(highs[i], 0, maxLength);
+                asn = length == Ip6PrefixTrie.NO_MATCH ? NO_ASN : current.get6(highs[i], 0, length);
+            }
+            if (length != Ip6PrefixTrie.NO_MATCH && length >= minLength) {
+                consumer.accept(i, ip6Prefix(highs[i], 0, length), asn);
+            }
+        }
+    }
+
+    /**
+     * Brings the index up to date: rebuilds it if the BGP sessions changed,
+     * otherwise applies the route updates received since the last refresh.
+     */
+    synchronized void refresh() {
+        if (!built || sessionsChanged()) {
+            rebuild();
+            return;
+        }
+        if (updatedPrefixes.isEmpty()) {
+            return;
+        }
+
+        Snapshot current = snapshot;
+        Ip4PrefixTrie overlay4 = current.overlay4.copy();
+        Ip6PrefixTrie overlay6 = current.overlay6.copy();
+        Map<IpPrefix, Long> updates = bestOriginAsns();
+        for (Map.Entry<IpPrefix, Long> update : updates.entrySet()) {
+            IpPrefix prefix = update.getKey();
+            if (prefix.isIp4()) {
+                overlay4.put(prefix.address().getIp4Address().toInt(), prefix.prefixLength(), update.getValue());
+            } else {
+                Ip6Address address = prefix.address().getIp6Address();
+                overlay6.put(high(address), low(address), prefix.prefixLength(), update.getValue());
+            }
+        }
+
+        Ip4PrefixTrie base4 = current.base4;
+        if (overlay4.size() > overlayLimit(base4.size())) {
+            base4 = merge(base4, overlay4);
+            overlay4 = new Ip4PrefixTrie();
+        }
+        Ip6PrefixTrie base6 = current.base6;
+        if (overlay6.size() > overlayLimit(base6.size())) {
+            base6 = merge(base6, overlay6);
+            overlay6 = new Ip6PrefixTrie();
+        }
+        snapshot = new Snapshot(base4, overlay4, base6, overlay6);
+        log.debug("Applied {} route updates", updates.size());
+    }
+
+    private static int overlayLimit(int baseSize) {
+        return Math.max(MIN_OVERLAY_LIMIT, baseSize / OVERLAY_RATIO);
+    }
+
+    private boolean sessionsChanged() {
+        int sessions = 0;
+        for (BgpSession bgpSession : bgpInfoService.getBgpSessions()) {
+            if (!indexedSessions.contains(bgpSession)) {
+                return true;
+            }
+            sessions++;
+        }
+        return sessions != indexedSessions.size();
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        updatedPrefixes.clear();
+        indexedSessions.clear();
+        for (BgpSession bgpSession : bgpInfoService.getBgpSessions()) {
+            indexedSessions.add(bgpSession);
+        }
+
+        // Best route of each prefix among all BGP sessions, as selected by the BGP speaker
+        Ip4PrefixTrie trie4 = new Ip4PrefixTrie();
+        for (BgpRouteEntry route4 : bgpInfoService.getBgpRoutes4()) {
+            IpPrefix prefix = route4.prefix();
+            long asn = originAsn(route4.getAsPath());
+            if (asn != NO_ASN) {
+                trie4.put(prefix.address().getIp4Address().toInt(), prefix.prefixLength(), asn);
+            }
+        }
+        Ip6PrefixTrie trie6 = new Ip6PrefixTrie();
+        for (BgpRouteEntry route6 : bgpInfoService.getBgpRoutes6()) {
+            IpPrefix prefix = route6.prefix();
+            long asn = originAsn(route6.getAsPath());
+            if (asn != NO_ASN) {
+                Ip6Address address = prefix.address().getIp6Address();
+                trie6.put(high(address), low(address), prefix.prefixLength(), asn);
+            }
+        }
+
+        snapshot = new Snapshot(trie4, new Ip4PrefixTrie(), trie6, new Ip6PrefixTrie());
+        built = true;
+        log.info("Indexed {} IPv4 and {} IPv6 routes of {} BGP sessions in {} ms", trie4.size(),
+                 trie6.size(), indexedSessions.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Takes the prefixes updated since the last refresh and gets the origin
+     * AS number of their best route, as selected by the BGP speaker, or
+     * {@link #WITHDRAWN} if they are no longer announced. The best routes
+     * are read the same way as on a rebuild, only scanning the address
+     * families that have updates.
+     */
+    private Map<IpPrefix, Long> bestOriginAsns() {
+        Map<IpPrefix, Long> updates = new HashMap<>();
+        boolean ip4 = false;
+        boolean ip6 = false;
+        for (Iterator<IpPrefix> it = updatedPrefixes.iterator(); it.hasNext();) {
+            IpPrefix prefix = it.next();
+            it.remove();
+            updates.put(prefix, WITHDRAWN);
+            ip4 |= prefix.isIp4();
+            ip6 |= prefix.isIp6();
+        }
+
+        if (ip4) {
+            resolveUpdates(bgpInfoService.getBgpRoutes4(), updates);
+        }
+        if (ip6) {
+            resolveUpdates(bgpInfoService.getBgpRoutes6(), updates);
+        }
+        return updates;
+    }
+
+    private static void resolveUpdates(Collection<BgpRouteEntry> bestRoutes, Map<IpPrefix, Long> updates) {
+        for (BgpRouteEntry route : bestRoutes) {
+            updates.computeIfPresent(route.prefix(), (prefix, withdrawn) -> {
+                long asn = originAsn(route.getAsPath());
+                return asn == NO_ASN ? withdrawn : asn;
+            });
+        }
+    }
+
+    private static Ip4PrefixTrie merge(Ip4PrefixTrie base, Ip4PrefixTrie overlay) {
+        Ip4PrefixTrie merged = new Ip4PrefixTrie();
+        base.forEach((address, length, asn) -> {
+            if (overlay.get(address, length) == Ip4PrefixTrie.NO_VALUE) {
+                merged.put(address, length, asn);
+            }
+        });
+        overlay.forEach((address, length, asn) -> {
+            if (asn != WITHDRAWN) {
+                merged.put(address, length, asn);
+            }
+        });
+        return merged;
+    }
+
+    private static Ip6PrefixTrie merge(Ip6PrefixTrie base, Ip6PrefixTrie overlay) {
+        Ip6PrefixTrie merged = new Ip6PrefixTrie();
+        base.forEach((high, low, length, asn) -> {
+            if (overlay.get(high, low, length) == Ip6PrefixTrie.NO_VALUE) {
+                merged.put(high, low, length, asn);
+            }
+        });
+        overlay.forEach((high, low, length, asn) -> {
+            if (asn != WITHDRAWN) {
+                merged.put(high, low, length, asn);
+            }
+        });
+        return merged;
+    }
+
+    /**
+     * Gets the high 64 bits of an IPv6 address.
+     *
+     * @param address IPv6 address
+     * @return high bits of the address
+     */
+    static long high(Ip6Address address) {
+        return ByteBuffer.wrap(address.toOctets()).getLong(0);
+    }
+
+    /**
+     * Gets the low 64 bits of an IPv6 address.
+     *
+     * @param address IPv6 address
+     * @return low bits of the address
+     */
+    static long low(Ip6Address address) {
+        return ByteBuffer.wrap(address.toOctets()).getLong(Long.BYTES);
+    }
+
+    private static Ip6Prefix ip6Prefix(long high, long low, int length) {
+        byte[] octets = ByteBuffer.allocate(Ip6Address.BYTE_LENGTH).putLong(high).putLong(low).array();
+        return Ip6Prefix.valueOf(octets, length);
+    }
+
+    /**
+     * Gets the last/originating AS number of an AS path. Only the final
+     * segment is read when it is an AS_SEQUENCE, the origin being its last
+     * AS number. A final AS_SET comes from aggregation: a single member is
+     * the origin, otherwise the aggregating AS, that is the last AS number
+     * of the preceding AS_SEQUENCE, is used. Confederation segments are
+     * skipped.
+     *
+     * @param asPath AS path of a route
+     * @return the origin AS number, or {@link #NO_ASN} if there is none
+     */
+    static long originAsn(BgpRouteEntry.AsPath asPath) {
+        List<BgpRouteEntry.PathSegment> pathSegments = asPath.getPathSegments();
+        for (int i = pathSegments.size() - 1; i >= 0; i--) {
+            BgpRouteEntry.PathSegment pathSegment = pathSegments.get(i);
+            List<Long> asNumbers = pathSegment.getSegmentAsNumbers();
+            if (asNumbers.isEmpty()) {
+                continue;
+            }
+            if (pathSegment.getType() == AS_SEQUENCE) {
+                return asNumbers.get(asNumbers.size() - 1);
+            }
+            if (pathSegment.getType() == AS_SET && asNumbers.size() == 1) {
+                return asNumbers.get(0);
+            }
+        }
+        return NO_ASN;
+    }
+
+    /**
+     * Immutable view of the index: for each address family, the routes of
+     * the base trie updated by the routes of the overlay trie.
+     */
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new Ip4PrefixTrie(), new Ip4PrefixTrie(),
+                                                           new Ip6PrefixTrie(), new Ip6PrefixTrie());
+
+        private final Ip4PrefixTrie base4;
+        private final Ip4PrefixTrie overlay4;
+        private final Ip6PrefixTrie base6;
+        private final Ip6PrefixTrie overlay6;
+
+        private Snapshot(Ip4PrefixTrie base4, Ip4PrefixTrie overlay4,
+                         Ip6PrefixTrie base6, Ip6PrefixTrie overlay6) {
+            this.base4 = base4;
+            this.overlay4 = overlay4;
+            this.base6 = base6;
+            this.overlay6 = overlay6;
+        }
+
+        private long get4(int address, int length) {
+            long asn = overlay4.get(address, length);
+            if (asn == Ip4PrefixTrie.NO_VALUE) {
+                asn = base4.get(address, length);
+            }
+            return asn == Ip4PrefixTrie.NO_VALUE || asn == WITHDRAWN ? NO_ASN : asn;
+        }
+
+        private long get6(long high, long low, int length) {
+            long asn = overlay6.get(high, low, length);
+            if (asn == Ip6PrefixTrie.NO_VALUE) {
+                asn = base6.get(high, low, length);
+            }
+            return asn == Ip6PrefixTrie.NO_VALUE || asn == WITHDRAWN ? NO_ASN : asn;
+        }
+
+        private int longestMatchLength4(int address, int maxLength) {
+            int length = maxLength;
+            while (length >= 0) {
+                int match = Math.max(base4.longestMatchLength(address, length),
+                                     overlay4.longestMatchLength(address, length));
+                if (match == Ip4PrefixTrie.NO_MATCH || overlay4.get(address, match) != WITHDRAWN) {
+                    return match;
+                }
+                // Withdrawn since the base was built, look for a shorter prefix
+                length = match - 1;
+            }
+            return Ip4PrefixTrie.NO_MATCH;
+        }
+
+        private int longestMatchLength6(long high, long low, int maxLength) {
+            int length = maxLength;
+            while (length >= 0) {
+                int match = Math.max(base6.longestMatchLength(high, low, length),
+                                     overlay6.longestMatchLength(high, low, length));
+                if (match == Ip6PrefixTrie.NO_MATCH || overlay6.get(high, low, match) != WITHDRAWN) {
+                    return match;
+                }
+                // Withdrawn since the base was built, look for a shorter prefix
+                length = match - 1;
+            }
+            return Ip6PrefixTrie.NO_MATCH;
+        }
+    }
+
+    /**
+     * Records the prefixes whose routes changed.
+     */
+    private class InternalRouteListener implements RouteListener {
+        @Override
+        public void event(RouteEvent event) {
+            updatedPrefixes.add(event.subject().prefix());
+        }
+    }
+}
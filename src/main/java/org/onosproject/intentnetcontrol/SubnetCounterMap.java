@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from primitive subnet keys to primitive counters,
+ * used to aggregate flow counters per subnet without boxing.
+ * Not thread-safe.
+ */
+
+final class SubnetCounterMap {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+
+    /**
+     * Receives the entries of the map.
+     */
+    interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    /**
+     * Creates an empty map.
+     */
+    SubnetCounterMap() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds a delta to the counter of a subnet.
+     *
+     * @param key   subnet key
+     * @param delta value to add
+     * @return the new value of the counter
+     */
+    long add(long key, long delta) {
+        int slot = slot(key);
+        if (used[slot]) {
+            values[slot] += delta;
+            return values[slot];
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    /**
+     * Gets the counter of a subnet.
+     *
+     * @param key subnet key
+     * @return the counter, or 0 if the subnet was never added
+     */
+    long get(long key) {
+        int slot = slot(key);
+        return used[slot] ? values[slot] : 0;
+    }
+
+    /**
+     * Gets the number of subnets in the map.
+     *
+     * @return number of subnets
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all subnets, keeping the allocated capacity.
+     */
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Passes every subnet and its counter to the consumer.
+     *
+     * @param consumer entry consumer
+     */
+    void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slot(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Hashed timing wheel expiring keys at a deadline. The wheel is a ring of
+ * slots of one tick each; a timer is hashed to the slot of its deadline tick
+ * and carries the number of full turns of the wheel left before it is due,
+ * so scheduling, rescheduling and cancelling a timer are O(1) whatever the
+ * number of timers, and advancing the wheel only visits the slots of the
+ * elapsed ticks.
+ * <p>
+ * Deadlines are rounded up to the tick, so a key never expires before its
+ * deadline but may expire up to one tick, plus the interval between two
+ * advances, after it.
+ * </p>
+ *
+ * @param <K> type of the keys
+ */
+
+final class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final Timer<K>[] slots;
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * Creates a timing wheel.
+     *
+     * @param slotCount  number of slots of the wheel
+     * @param tickMillis duration of a tick in milliseconds
+     * @param now        current time in milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(int slotCount, long tickMillis, long now) {
+        checkArgument(slotCount > 0, "Number of slots must be positive");
+        checkArgument(tickMillis > 0, "Tick duration must be positive");
+        this.tickMillis = tickMillis;
+        this.slots = (Timer<K>[]) new Timer<?>[slotCount];
+        this.currentTick = now / tickMillis;
+    }
+
+    /**
+     * Schedules the expiry of a key, replacing its previous deadline if it
+     * is already scheduled.
+     *
+     * @param key      key
+     * @param deadline time the key expires at, in milliseconds
+     */
+    synchronized void schedule(K key, long deadline) {
+        Timer<K> timer = timers.get(key);
+        if (timer == null) {
+            timer = new Timer<>(key);
+            timers.put(key, timer);
+        } else {
+            unlink(timer);
+        }
+        // Ticks before the current one were already visited
+        long tick = Math.max(ceilDiv(deadline, tickMillis), currentTick);
+        timer.rounds = (tick - currentTick) / slots.length;
+        link(timer, (int) (tick % slots.length));
+    }
+
+    /**
+     * Cancels the expiry of a key.
+     *
+     * @param key key
+     * @return true if the key was scheduled
+     */
+    synchronized boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    /**
+     * Checks whether the expiry of a key is scheduled.
+     *
+     * @param key key
+     * @return true if the key is scheduled
+     */
+    synchronized boolean isScheduled(K key) {
+        return timers.containsKey(key);
+    }
+
+    /**
+     * Advances the wheel to the given time and removes the keys due by then.
+     *
+     * @param now current time in milliseconds
+     * @return expired keys
+     */
+    synchronized List<K> advance(long now) {
+        List<K> expired = new ArrayList<>();
+        long lastTick = now / tickMillis;
+        // After a full turn every slot has been visited, the remaining
+        // ticks only count down the rounds of the timers left
+        long turns = 0;
+        if (lastTick - currentTick >= slots.length) {
+            turns = (lastTick - currentTick) / slots.length - 1;
+            lastTick -= turns * slots.length;
+        }
+        for (; currentTick <= lastTick; currentTick++) {
+            Timer<K> timer = slots[(int) (currentTick % slots.length)];
+            while (timer != null) {
+                Timer<K> next = timer.next;
+                if (timer.rounds <= turns) {
+                    unlink(timer);
+                    timers.remove(timer.key);
+                    expired.add(timer.key);
+                } else if (currentTick + slots.length > lastTick) {
+                    // Last visit of the slot during this advance
+                    timer.rounds -= turns + 1;
+                } else {
+                    timer.rounds--;
+                }
+                timer = next;
+            }
+        }
+        currentTick += turns * slots.length;
+        return expired;
+    }
+
+    /**
+     * Gets the number of scheduled keys.
+     *
+     * @return number of keys
+     */
+    synchronized int size() {
+        return timers.size();
+    }
+
+    /**
+     * Cancels the expiry of every key.
+     */
+    synchronized void clear() {
+        timers.clear();
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = null;
+        }
+    }
+
+    private void link(Timer<K> timer, int slot) {
+        timer.slot = slot;
+        timer.previous = null;
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        slots[slot] = timer;
+    }
+
+    private void unlink(Timer<K> timer) {
+        if (timer.previous == null) {
+            slots[timer.slot] = timer.next;
+        } else {
+            timer.previous.next = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    /**
+     * Timer of a key, linked in the slot of its deadline tick.
+     */
+    private static final class Timer<K> {
+
+        private final K key;
+        private long rounds;
+        private int slot;
+        private Timer<K> previous;
+        private Timer<K> next;
+
+        private Timer(K key) {
+            this.key = key;
+        }
+    }
+}
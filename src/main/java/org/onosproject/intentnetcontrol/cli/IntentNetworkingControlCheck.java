@@ -18,31 +18,15 @@ package org.onosproject.intentnetcontrol.cli;
 
 import org.apache.karaf.shell.commands.Argument;
 import org.apache.karaf.shell.commands.Command;
-import org.onosproject.intentnetcontrol.IntentNetworkingControl;
+import org.onlab.packet.IpPrefix;
 import org.onosproject.intentnetcontrol.IntentNetworkingControlConfig;
+import org.onosproject.intentnetcontrol.IntentNetworkingControlService;
+import org.onosproject.intentnetcontrol.MemberClient;
 import org.onosproject.cli.AbstractShellCommand;
-import org.onosproject.core.ApplicationId;
-import org.onosproject.core.CoreService;
-import org.onosproject.net.config.NetworkConfigService;
 import org.onosproject.net.intent.Intent;
-import org.onosproject.net.intent.IntentService;
-import org.onosproject.net.intent.MultiPointToSinglePointIntent;
-import org.onosproject.routing.bgp.BgpInfoService;
-import org.onosproject.routing.bgp.BgpRouteEntry;
-import org.onosproject.routing.bgp.BgpSession;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.Authenticator;
 import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.PasswordAuthentication;
-import java.net.URL;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Set;
 
 /**
  * CLI to check the detail information (controller, asn, and installed intents)
@@ -56,7 +40,6 @@ public class IntentNetworkingControlCheck extends AbstractShellCommand {
 
     private static final String INTENT_API = "/onos/v1/intents/";
     private static final String SDN_IP_APP = "org.onosproject.sdnip";
-    private static final String LOCAL_ASN = "65011";
     Class<IntentNetworkingControlConfig> configClass = IntentNetworkingControlConfig.class;
 
     @Argument(index = 0, name = "route", description = "Route Prefix",
@@ -70,15 +53,23 @@ public class IntentNetworkingControlCheck extends AbstractShellCommand {
     @Override
     protected void execute() {
 
-        String asn = "";
+        long asn = routeToAsn(route);
 
-        if (routeToAsn(route) == null) {
+        if (asn == IntentNetworkingControlService.NO_ASN) {
             print("No originating AS Number for this prefix %s", route);
+            return;
         }
 
-        if (routeToAsn(route).equals(checkLocalAsn(routeToAsn(route)))) {
+        IntentNetworkingControlConfig.ControllerConfig controller =
+                get(IntentNetworkingControlService.class).memberController(asn);
+        if (controller == null) {
+            print("No member controller is configured for AS %s of this prefix %s", asn, route);
+            return;
+        }
+
+        if (controller.isLocal()) {
 
-            print("This prefix %s is originating from Local AS Number (AS %s)", route, LOCAL_ASN);
+            print("This prefix %s is originating from Local AS Number (AS %s)", route, asn);
 
             if (checkLocalIntent(route) == null) {
                 print("No local intent is installed for this prefix %s", route);
@@ -88,9 +79,10 @@ public class IntentNetworkingControlCheck extends AbstractShellCommand {
 
         } else {
 
-            print("This prefix %s is originating from Remote AS Number %s", route, routeToAsn(route));
+            print("This prefix %s is originating from Remote AS Number %s", route, asn);
 
-            if (checkRemoteIntent(routeToAsn(route), route) != null) {
+            String matchRemoteIntent = checkRemoteIntent(controller, route);
+            if (matchRemoteIntent != null && !matchRemoteIntent.isEmpty()) {
                 print("Remote intent is installed for this prefix %s", route);
             } else {
                 print("No remote intent is installed for this prefix %s", route);
@@ -109,25 +101,7 @@ public class IntentNetworkingControlCheck extends AbstractShellCommand {
      */
 
     private Intent checkLocalIntent(String route) {
-
-        IntentService intentService = get(IntentService.class);
-        Intent intentRoute = null;
-        for (Intent intent : intentService.getIntents()) {
-            /**
-             * Only get multi-point-to-single-point intent
-             */
-
-            if (intent instanceof MultiPointToSinglePointIntent) {
-                MultiPointToSinglePointIntent pi = (MultiPointToSinglePointIntent) intent;
-                String key = String.format("%s", pi.key());
-                if (key.equals(route)) {
-                    //print("%s", pi);
-                    intentRoute = pi;
-                    break;
-                }
-            }
-        }
-        return intentRoute;
+        return get(IntentNetworkingControlService.class).localIntent(route);
     }
 
     /**
@@ -135,207 +109,70 @@ public class IntentNetworkingControlCheck extends AbstractShellCommand {
      *
      * @param route route prefix to be checked
      *
-     * @return the last/originating AS Number.
+     * @return the last/originating AS Number, or NO_ASN if the prefix is not announced.
      */
 
-    private String routeToAsn(String route) {
-
-        String lastAsn = "";
-        BgpInfoService bgpInfoService = get(BgpInfoService.class);
-        BgpSession foundBgpSession = null;
-        for (BgpSession bgpSession : bgpInfoService.getBgpSessions()) {
-            foundBgpSession = bgpSession;
-        }
-
-        /**
-         * Get the ASPath for specific BGP Peering
-         */
-
-        Collection<BgpRouteEntry> routes4 = foundBgpSession.getBgpRibIn4();
-        for (BgpRouteEntry route4 : routes4) {
-            String route4string = String.format("%s", route4.prefix());
-            if ((route4string.equals(route))) {
-                //print("%s", lastAsNumber(route4.getAsPath()));
-                lastAsn = lastAsNumber(route4.getAsPath());
-            }
-        }
-        return lastAsn;
+    private long routeToAsn(String route) {
+        return get(IntentNetworkingControlService.class).originAsn(IpPrefix.valueOf(route));
     }
 
     /**
      * Check and print installed intents for specific route prefix
      * in remote controller participating in intent-based networking control.
      *
+     * @param controller remote controller of the originating AS
      * @param route route prefix to be checked
-     * @param asn origination AS Number for the route
      *
      * @return installed multi-point-to-single-point intent in remote controller
      */
 
-    private String checkRemoteIntent(String asn, String route) {
-
-        Class<IntentNetworkingControlConfig> configClass = IntentNetworkingControlConfig.class;
-        NetworkConfigService configService = get(NetworkConfigService.class);
-        CoreService coreService = get(CoreService.class);
-        ApplicationId intentNetworkingControlAppId =
-                coreService.getAppId(IntentNetworkingControl.INTENT_NETWORKING_CONTROL_APP);
-        print("%s", intentNetworkingControlAppId.toString());
-        IntentNetworkingControlConfig memberConfig =
-                configService.getConfig(intentNetworkingControlAppId, configClass);
-        Set<IntentNetworkingControlConfig.ControllerConfig> memberControllers;
-        String installedIntent = "";
-
-        if (memberConfig == null || memberConfig.controllers().isEmpty()) {
-            print("no configuration");
-        }
-
-        /**
-         * Iterate all members configuration and stop for matched AS Number
-         */
-
-        memberControllers = memberConfig.controllers();
-
-        /*memberConfig.controllers().forEach(controllerConfig -> {
-            print("%s", controllerConfig.asn());
-            print("%s", controllerConfig.ip());
-            print("%s", controllerConfig.username());
-            print("%s", controllerConfig.password());
-            print("%s", controllerConfig.sinkPort());
-            if (asn.equals(controllerConfig.asn())) {
-                originatingMember = controllerConfig;
-            }
-        });*/
-
-        for (IntentNetworkingControlConfig.ControllerConfig memberController : memberControllers) {
-            if (memberController.asn().equals(asn)) {
-                try {
-                    checkIntentApi(memberController.ip(),
-                                   memberController.username(),
-                                   memberController.password(),
-                                   route);
-                } catch (IOException ie) {
-                    ie.printStackTrace();
-                }
-            }
+    private String checkRemoteIntent(IntentNetworkingControlConfig.ControllerConfig controller, String route) {
+        try {
+            return checkIntentApi(memberClient(controller), route);
+        } catch (IOException ie) {
+            print("Unable to check intent on %s: %s", controller.ip(), ie.getMessage());
+            return null;
         }
-        return installedIntent;
     }
 
     /**
-     * Check local or remote controller based on the AS number.
+     * Gets the REST client of a member controller.
      *
-     * @param asn origination AS Number for the route
-     *
-     * @return local or remote type of controller
-     */
-
-    private String checkLocalAsn(String asn) {
-
-        Class<IntentNetworkingControlConfig> configClass = IntentNetworkingControlConfig.class;
-        NetworkConfigService configService = get(NetworkConfigService.class);
-        CoreService coreService = get(CoreService.class);
-        ApplicationId intentNetworkingControlAppId =
-                coreService.getAppId(IntentNetworkingControl.INTENT_NETWORKING_CONTROL_APP);
-        IntentNetworkingControlConfig memberConfig =
-                configService.getConfig(intentNetworkingControlAppId, configClass);
-        Set<IntentNetworkingControlConfig.ControllerConfig> memberControllers;
-        String localAsn = "";
-
-        if (memberConfig == null || memberConfig.controllers().isEmpty()) {
-            print("no configuration");
-        }
-
-        /**
-         * Iterate all members configuration and stop for matched AS Number
-         */
-
-        memberControllers = memberConfig.controllers();
-
-        for (IntentNetworkingControlConfig.ControllerConfig memberController : memberControllers) {
-            if (memberController.asn().equals(asn)) {
-                if (memberController.controllerType() == "local") {
-                    localAsn = asn;
-                }
-            }
-        }
-        return localAsn;
-    }
-
-    /**
-     * Gets specific last/originating AS Number from AS Path.
+     * @param controller member controller
      *
-     * @param asPath AS Path to be checked from specific route
+     * @return the REST client shared by the calls to the controller
      *
-     * @return the last/origination AS Number.
+     * @throws IOException if the control is not running
      */
 
-    private String lastAsNumber(BgpRouteEntry.AsPath asPath) {
-
-        String lastSegment = "";
-
-        ArrayList<BgpRouteEntry.PathSegment> pathSegments =
-                asPath.getPathSegments();
-
-        /**
-         * Only get last segment of the AS Path
-         */
-
-        for (BgpRouteEntry.PathSegment pathSegment : pathSegments) {
-            for (Long asn : pathSegment.getSegmentAsNumbers()) {
-                if (pathSegment == pathSegments.get(pathSegments.size() - 1)) {
-                    lastSegment = asn.toString();
-                }
-
-            }
+    private MemberClient memberClient(IntentNetworkingControlConfig.ControllerConfig controller) throws IOException {
+        MemberClient client = get(IntentNetworkingControlService.class).memberClient(controller.asn());
+        if (client == null) {
+            throw new IOException("no REST client, intent networking control is not running");
         }
-        return lastSegment;
+        return client;
     }
 
     /**
-     * Check and print the status of installed intents for specific route prefix
-     * in remote controller participating in intent-based networking control
+     * Check and print the status of installed intents through intent REST API
+     * for specific route prefix in remote controller participating in intent-based networking control
      * with given configuration from intent-based networking control application config.
      *
-     * @param onosIp Remote Controller's IP address
-     * @param user Remote Controller's username
-     * @param password Remote Controller's password
+     * @param client REST client of the remote controller
      * @param route route prefix to be checked
      */
 
-    private String checkIntentApi(String onosIp, String user, String password, String route) throws IOException {
+    private String checkIntentApi(MemberClient client, String route) throws IOException {
 
-        String intentUrl = "http://" + onosIp + ":8181" + INTENT_API + SDN_IP_APP + "/" + route.replaceAll("/", "%2F");
-        URL url = null;
-        String intent = "";
-
-        try {
-            url = new URL(intentUrl);
-            Authenticator.setDefault(new Authenticator() {
-                protected PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication(user, password.toCharArray());
-                }
-            });
-        } catch (MalformedURLException e) {
-            e.printStackTrace();
-        }
-
-        /**
-         * Make REST API call to remote controller
-         */
-
-        HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
-        int responseCode = urlConnection.getResponseCode();
-        if (responseCode == 200) {
-            InputStream is = urlConnection.getInputStream();
-            BufferedReader in = new BufferedReader(new InputStreamReader(is));
-            intent = in.readLine();
+        MemberClient.Response response =
+                client.get(INTENT_API + SDN_IP_APP + "/" + route.replaceAll("/", "%2F"));
+        if (response.status() == HttpURLConnection.HTTP_OK) {
+            String intent = response.body().trim();
             print(intent);
             print("Intent Exist");
-        } else {
-            print(intent);
-            print("Intent Not Exist");
+            return intent;
         }
-
-        return intent;
+        print("Intent Not Exist");
+        return "";
     }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol.cli;
+
+import org.apache.karaf.shell.commands.Command;
+import org.apache.karaf.shell.commands.Option;
+import org.onosproject.cli.AbstractShellCommand;
+import org.onosproject.intentnetcontrol.IntentNetworkingControlService;
+import org.onosproject.intentnetcontrol.LatencyHistogram;
+
+import java.util.Map;
+
+/**
+ * CLI to show the latencies of the redirect intents, from the decision to
+ * redirect a route prefix to the installation of its intent.
+ */
+
+@Command(scope = "intentnetcontrol", name = "intentnetcontrol-latency",
+        description = "show the latency percentiles of the redirect intents in milliseconds")
+
+public class IntentNetworkingControlLatency extends AbstractShellCommand {
+
+    private static final String FORMAT =
+            "%-22s count=%-8d mean=%-10.3f p50=%-10.3f p90=%-10.3f p99=%-10.3f max=%.3f";
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    @Option(name = "-r", aliases = "--reset", description = "Reset the histograms after showing them",
+            required = false, multiValued = false)
+    boolean reset = false;
+
+    /**
+     * Print the latency histogram of each stage.
+     */
+
+    @Override
+    protected void execute() {
+        Map<String, LatencyHistogram> latencies =
+                get(IntentNetworkingControlService.class).redirectLatencies();
+        if (latencies.isEmpty()) {
+            print("Intent networking control is not running");
+            return;
+        }
+
+        latencies.forEach((stage, histogram) -> {
+            print(FORMAT, stage, histogram.count(),
+                  millis(histogram.mean()),
+                  millis(histogram.percentile(50)),
+                  millis(histogram.percentile(90)),
+                  millis(histogram.percentile(99)),
+                  millis(histogram.max()));
+            if (reset) {
+                histogram.reset();
+            }
+        });
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+}
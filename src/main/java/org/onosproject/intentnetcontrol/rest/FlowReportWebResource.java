@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol.rest;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.onosproject.intentnetcontrol.IntentNetworkingControlService;
+import org.onosproject.rest.AbstractWebResource;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Receives the flow reports pushed by the visibility server.
+ */
+
+@Path("flows")
+public class FlowReportWebResource extends AbstractWebResource {
+
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    /**
+     * Submits a batch of flow records. The body uses the same format as the
+     * visibility flow feed, e.g. an array of objects carrying source_address,
+     * number_of_packet and number_of_byte, counted since the previous push.
+     *
+     * @param stream flow records
+     * @return 202 ACCEPTED if the report was queued for detection,
+     * 400 BAD_REQUEST if it cannot be parsed, 503 SERVICE_UNAVAILABLE if
+     * too many reports are pending
+     * @onos.rsModel FlowReport
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response reportFlows(InputStream stream) {
+        IntentNetworkingControlService service = get(IntentNetworkingControlService.class);
+        ObjectNode root = mapper().createObjectNode();
+
+        try {
+            if (!service.reportFlows(stream)) {
+                root.put("error", "too many flow reports pending");
+                return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                        .header("Retry-After", RETRY_AFTER_SECONDS)
+                        .entity(root)
+                        .build();
+            }
+        } catch (IOException e) {
+            root.put("error", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(root).build();
+        }
+        return Response.status(Response.Status.ACCEPTED).entity(root).build();
+    }
+}
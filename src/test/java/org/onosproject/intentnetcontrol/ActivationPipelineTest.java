@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.junit.After;
+import org.junit.Test;
+import org.onlab.packet.IpPrefix;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the activation pipeline.
+ */
+public class ActivationPipelineTest {
+
+    private static final IpPrefix PREFIX1 = IpPrefix.valueOf("10.0.1.0/24");
+    private static final IpPrefix PREFIX2 = IpPrefix.valueOf("10.0.2.0/24");
+
+    private final ActivationPipeline pipeline = new ActivationPipeline(2, 16);
+
+    @After
+    public void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void reportsBatchCompletion() throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(1);
+        AtomicReference<ActivationPipeline.Batch> result = new AtomicReference<>();
+        ActivationPipeline.Batch batch = pipeline.newBatch(b -> {
+            result.set(b);
+            completed.countDown();
+        });
+
+        assertTrue(batch.submit(PREFIX1, () -> true));
+        assertTrue(batch.submit(PREFIX2, () -> {
+            throw new IllegalStateException("unreachable controller");
+        }));
+        batch.seal();
+
+        assertTrue(completed.await(5, SECONDS));
+        assertNotNull(result.get());
+        assertEquals(2, batch.submitted());
+        assertEquals(1, batch.redirected());
+        assertEquals(1, batch.failed());
+        assertEquals(0, pipeline.pending());
+    }
+
+    @Test
+    public void skipsPendingPrefix() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        ActivationPipeline.Batch batch = pipeline.newBatch(b -> completed.countDown());
+
+        assertTrue(batch.submit(PREFIX1, () -> release.await(5, SECONDS)));
+        assertFalse(batch.submit(PREFIX1, () -> true));
+        assertEquals(1, pipeline.pending());
+
+        release.countDown();
+        batch.seal();
+        assertTrue(completed.await(5, SECONDS));
+        assertEquals(1, batch.submitted());
+    }
+
+    @Test
+    public void slowPrefixDoesNotBlockOthers() throws InterruptedException {
+        pipeline.resize(4);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastDone = new CountDownLatch(1);
+        ActivationPipeline.Batch batch = pipeline.newBatch(b -> { });
+
+        // Both prefixes may share a worker only if their hashes collide
+        if (Math.floorMod(PREFIX1.hashCode(), 4) == Math.floorMod(PREFIX2.hashCode(), 4)) {
+            return;
+        }
+        batch.submit(PREFIX1, () -> release.await(5, SECONDS));
+        batch.submit(PREFIX2, () -> {
+            fastDone.countDown();
+            return true;
+        });
+        batch.seal();
+
+        assertTrue(fastDone.await(5, SECONDS));
+        release.countDown();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.onosproject.TestApplicationId;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the member controller lookup table.
+ */
+public class ControllerTableTest {
+
+    private static final String CONFIG =
+            "{\"controllers\": ["
+            + "{\"controllerType\": \"remote\", \"asn\": 65012, \"ip\": \"10.0.0.12\","
+            + " \"username\": \"onos\", \"password\": \"rocks\", \"sinkPort\": \"of:0000000000000012/3\"},"
+            + "{\"controllerType\": \"local\", \"asn\": \"65011\", \"ip\": \"10.0.0.11\","
+            + " \"username\": \"onos\", \"password\": \"rocks\", \"sinkPort\": \"of:0000000000000011/3\"},"
+            + "{\"controllerType\": \"remote\", \"asn\": 4200000000, \"ip\": \"10.0.0.13\","
+            + " \"username\": \"onos\", \"password\": \"rocks\", \"sinkPort\": \"of:0000000000000013/3\"}"
+            + "]}";
+
+    private static IntentNetworkingControlConfig config(String json) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode node = mapper.readTree(json);
+        IntentNetworkingControlConfig config = new IntentNetworkingControlConfig();
+        config.init(new TestApplicationId("test"), IntentNetworkingControl.CONFIG_KEY, node, mapper, c -> { });
+        return config;
+    }
+
+    @Test
+    public void looksUpByAsn() throws IOException {
+        ControllerTable table = ControllerTable.of(config(CONFIG));
+
+        assertEquals(3, table.size());
+        assertEquals("10.0.0.11", table.get(65011).ip());
+        assertTrue(table.get(65011).isLocal());
+        assertEquals("10.0.0.12", table.get(65012).ip());
+        assertFalse(table.get(65012).isLocal());
+        assertEquals("10.0.0.13", table.get(4200000000L).ip());
+        assertNull(table.get(65013));
+        assertNotNull(table.sinkPoint(65011));
+        assertNull(table.sinkPoint(65013));
+        assertEquals("{\"port\":\"3\",\"device\":\"of:0000000000000012\"}", table.sinkPointJson(65012));
+        assertNull(table.sinkPointJson(65013));
+    }
+
+    @Test
+    public void reusesClientsOfUnchangedControllers() throws IOException {
+        ControllerTable previous = ControllerTable.of(config(CONFIG));
+        ControllerTable table = ControllerTable.of(config(
+                CONFIG.replace("\"10.0.0.13\", \"username\": \"onos\", \"password\": \"rocks\"",
+                               "\"10.0.0.13\", \"username\": \"onos\", \"password\": \"karaf\"")),
+                                                   previous);
+
+        assertSame(previous.client(65011), table.client(65011));
+        assertSame(previous.client(65012), table.client(65012));
+        assertNotSame(previous.client(4200000000L), table.client(4200000000L));
+        // Calls for a redirect of the old configuration use the client of the new one
+        assertSame(table.client(4200000000L), table.client(previous.get(4200000000L)));
+    }
+
+    @Test
+    public void sharesClientAcrossAsns() throws IOException {
+        ControllerTable table = ControllerTable.of(config(
+                "{\"controllers\": ["
+                + "{\"controllerType\": \"remote\", \"asn\": 65012, \"ip\": \"10.0.0.12\","
+                + " \"username\": \"onos\", \"password\": \"rocks\", \"sinkPort\": \"of:0000000000000012/3\"},"
+                + "{\"controllerType\": \"remote\", \"asn\": 65013, \"ip\": \"10.0.0.12\","
+                + " \"username\": \"onos\", \"password\": \"rocks\", \"sinkPort\": \"of:0000000000000012/4\"}"
+                + "]}"));
+
+        assertSame(table.client(65012), table.client(65013));
+    }
+
+    @Test
+    public void emptyWithoutConfig() {
+        assertEquals(0, ControllerTable.of(null).size());
+        assertNull(ControllerTable.of(null).get(65011));
+        assertNull(ControllerTable.of(null).sinkPoint(65011));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the flow feed cursor.
+ */
+public class FlowFeedCursorTest {
+
+    private static final String SOURCE = "http://visibility:8000/api/";
+
+    @Test
+    public void advancesPastCompletedFetch() {
+        FlowFeedCursor cursor = new FlowFeedCursor();
+        List<FlowRecord> flows = new ArrayList<>();
+
+        FlowFeedCursor.Tracker tracker = cursor.track(SOURCE, flows::add);
+        tracker.accept(new FlowRecord(0x0A000105, 10, 1000, 7));
+        tracker.accept(new FlowRecord(0x0A000106, 10, 1000, 8));
+        assertEquals(FlowFeedCursor.NONE, cursor.position(SOURCE));
+
+        tracker.complete();
+        assertEquals(8, cursor.position(SOURCE));
+        assertEquals(2, flows.size());
+    }
+
+    @Test
+    public void skipsRecordsAlreadySeen() {
+        FlowFeedCursor cursor = new FlowFeedCursor();
+        FlowFeedCursor.Tracker first = cursor.track(SOURCE, flow -> { });
+        first.accept(new FlowRecord(0x0A000105, 10, 1000, 8));
+        first.complete();
+
+        List<FlowRecord> flows = new ArrayList<>();
+        FlowFeedCursor.Tracker tracker = cursor.track(SOURCE, flows::add);
+        tracker.accept(new FlowRecord(0x0A000105, 10, 1000, 8));
+        tracker.accept(new FlowRecord(0x0A000106, 10, 1000, 9));
+        tracker.accept(new FlowRecord(0x0A000107, 10, 1000, FlowRecord.NO_SEQUENCE));
+        tracker.complete();
+
+        assertEquals(2, flows.size());
+        assertEquals(9, cursor.position(SOURCE));
+    }
+
+    @Test(expected = FlowFeedCursor.GapException.class)
+    public void detectsGap() {
+        FlowFeedCursor cursor = new FlowFeedCursor();
+        FlowFeedCursor.Tracker first = cursor.track(SOURCE, flow -> { });
+        first.accept(new FlowRecord(0x0A000105, 10, 1000, 3));
+        first.complete();
+
+        cursor.track(SOURCE, flow -> { }).accept(new FlowRecord(0x0A000106, 10, 1000, 5));
+    }
+
+    @Test(expected = FlowFeedCursor.GapException.class)
+    public void detectsGapInsideDelta() {
+        FlowFeedCursor cursor = new FlowFeedCursor();
+        FlowFeedCursor.Tracker first = cursor.track(SOURCE, flow -> { });
+        first.accept(new FlowRecord(0x0A000105, 10, 1000, 3));
+        first.complete();
+
+        FlowFeedCursor.Tracker tracker = cursor.track(SOURCE, flow -> { });
+        tracker.accept(new FlowRecord(0x0A000106, 10, 1000, 4));
+        tracker.accept(new FlowRecord(0x0A000107, 10, 1000, 6));
+    }
+
+    @Test(expected = FlowFeedCursor.GapException.class)
+    public void detectsSequenceGoingBackwards() {
+        FlowFeedCursor cursor = new FlowFeedCursor();
+        FlowFeedCursor.Tracker first = cursor.track(SOURCE, flow -> { });
+        first.accept(new FlowRecord(0x0A000105, 10, 1000, 3));
+        first.complete();
+
+        FlowFeedCursor.Tracker tracker = cursor.track(SOURCE, flow -> { });
+        tracker.accept(new FlowRecord(0x0A000106, 10, 1000, 4));
+        tracker.accept(new FlowRecord(0x0A000107, 10, 1000, 5));
+        tracker.accept(new FlowRecord(0x0A000108, 10, 1000, 4));
+    }
+
+    @Test
+    public void resetForcesFullFetch() {
+        FlowFeedCursor cursor = new FlowFeedCursor();
+        FlowFeedCursor.Tracker first = cursor.track(SOURCE, flow -> { });
+        first.accept(new FlowRecord(0x0A000105, 10, 1000, 3));
+        first.complete();
+
+        cursor.reset(SOURCE);
+        List<FlowRecord> flows = new ArrayList<>();
+        cursor.track(SOURCE, flows::add).accept(new FlowRecord(0x0A000106, 10, 1000, 1));
+        assertEquals(1, flows.size());
+    }
+}
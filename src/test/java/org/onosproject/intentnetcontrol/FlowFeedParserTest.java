@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the streaming flow feed parser.
+ */
+public class FlowFeedParserTest {
+
+    private static InputStream feed(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void parsesFlowArray() throws IOException {
+        List<FlowRecord> flows = new ArrayList<>();
+        int count = FlowFeedParser.parse(feed(
+                "[{\"source_address\": \"10.0.1.5\", \"number_of_packet\": 150000,"
+                        + "  \"number_of_byte\": 9000000},\n"
+                        + " {\"source_address\": \"10.0.2.7\", \"number_of_packet\": \"42\","
+                        + "  \"protocol\": {\"name\": \"tcp\"}}]"), flows::add);
+
+        assertEquals(2, count);
+        assertEquals(0x0A000105, flows.get(0).sourceAddress());
+        assertEquals(150000, flows.get(0).packetCount());
+        assertEquals(9000000, flows.get(0).byteCount());
+        assertEquals(0x0A000207, flows.get(1).sourceAddress());
+        assertEquals(42, flows.get(1).packetCount());
+    }
+
+    @Test
+    public void parsesWrappedAndConcatenatedChunks() throws IOException {
+        List<FlowRecord> flows = new ArrayList<>();
+        int count = FlowFeedParser.parse(feed(
+                "{\"FlowArray\": [{\"source_address\": \"10.0.1.5\", \"number_of_packet\": 1}]}\n"
+                        + "[{\"source_address\": \"10.0.3.9\"}]\n"), flows::add);
+
+        assertEquals(2, count);
+        assertEquals(0x0A000309, flows.get(1).sourceAddress());
+        assertEquals(0, flows.get(1).packetCount());
+    }
+
+    @Test
+    public void ignoresObjectsWithoutSource() throws IOException {
+        List<FlowRecord> flows = new ArrayList<>();
+        assertEquals(0, FlowFeedParser.parse(feed("[{\"number_of_packet\": 5}, 3, \"x\"]"),
+                                             flows::add));
+        assertEquals(0, flows.size());
+    }
+
+    @Test
+    public void dropsMalformedSources() throws IOException {
+        List<FlowRecord> flows = new ArrayList<>();
+        assertEquals(1, FlowFeedParser.parse(feed(
+                "[{\"source_address\": \"10.0.1\"}, {\"source_address\": \"10.0.1.256\"},"
+                        + " {\"source_address\": \"10..1.5\"}, {\"source_address\": 167772421},"
+                        + " {\"source_address\": \"10.0.1.5.\"}, {\"source_address\": \"10.0.1.5\"}]"),
+                                             flows::add));
+        assertEquals(0x0A000105, flows.get(0).sourceAddress());
+    }
+
+    @Test
+    public void parsesIp4WithoutAllocating() {
+        char[] chars = "x255.255.0.1y".toCharArray();
+        assertEquals(0xFFFF0001L, FlowFeedParser.parseIp4(chars, 1, 11));
+        assertEquals(FlowFeedParser.INVALID_ADDRESS, FlowFeedParser.parseIp4(chars, 0, 12));
+        assertEquals(FlowFeedParser.INVALID_ADDRESS, FlowFeedParser.parseIp4(chars, 1, 0));
+    }
+
+    @Test
+    public void parsesIp6Sources() throws IOException {
+        List<FlowRecord> flows = new ArrayList<>();
+        assertEquals(2, FlowFeedParser.parse(feed(
+                "[{\"source_address\": \"2001:db8::1\", \"number_of_packet\": 5},"
+                        + " {\"source_address\": \"2001:db8::1::2\"},"
+                        + " {\"source_address\": \"10.0.1.5\"}]"), flows::add));
+        assertTrue(flows.get(0).isIp6());
+        assertEquals(0x20010DB800000000L, flows.get(0).sourceHigh());
+        assertEquals(1, flows.get(0).sourceLow());
+        assertEquals(5, flows.get(0).packetCount());
+        assertFalse(flows.get(1).isIp6());
+    }
+
+    @Test
+    public void parsesIp6TextForms() {
+        assertIp6(0x20010DB800000000L, 0x0000000000000001L, "2001:db8:0:0:0:0:0:1");
+        assertIp6(0x20010DB800000000L, 0x0000000000000001L, "2001:DB8::1");
+        assertIp6(0, 0, "::");
+        assertIp6(0, 1, "::1");
+        assertIp6(0xFE80000000000000L, 0, "fe80::");
+        assertIp6(0, 0x0000FFFF0A000105L, "::ffff:10.0.1.5");
+        assertIp6(0x0001000200030004L, 0x00050006C0A80001L, "1:2:3:4:5:6:192.168.0.1");
+
+        int[] groups = new int[FlowFeedParser.IP6_GROUPS];
+        for (String invalid : new String[] {"", ":", ":::", "1:2", "1::2::3", "1:2:3:4:5:6:7:8:9",
+                "1:2:3:4:5:6:7::8", "12345::", "1:", ":1", "g::", "::ffff:10.0.1", "1:2:3:4:5:6:7:10.0.1.5",
+                "::1%eth0"}) {
+            char[] chars = invalid.toCharArray();
+            assertFalse(invalid, FlowFeedParser.parseIp6(chars, 0, chars.length, groups));
+        }
+    }
+
+    private static void assertIp6(long high, long low, String address) {
+        int[] groups = new int[FlowFeedParser.IP6_GROUPS];
+        char[] chars = address.toCharArray();
+        assertTrue(address, FlowFeedParser.parseIp6(chars, 0, chars.length, groups));
+        assertEquals(address, high, FlowFeedParser.high(groups));
+        assertEquals(address, low, FlowFeedParser.low(groups));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedFeed() throws IOException {
+        FlowFeedParser.parse(feed("[{\"source_address\": \"10.0.1.5\", "), flow -> { });
+    }
+}
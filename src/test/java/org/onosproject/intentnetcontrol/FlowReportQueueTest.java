@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the queue of pushed flow reports.
+ */
+public class FlowReportQueueTest {
+
+    private static final int CAPACITY = 64;
+
+    private static FlowReport report() {
+        return new FlowReport(0, 24, 64, true);
+    }
+
+    @Test
+    public void boundsPendingReports() {
+        List<FlowReport> handled = new ArrayList<>();
+        FlowReportQueue queue = new FlowReportQueue(CAPACITY, handled::add);
+
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(queue.offer(report(), null));
+        }
+        assertFalse(queue.offer(report(), null));
+        assertEquals(CAPACITY, queue.size());
+
+        queue.drain();
+        assertEquals(CAPACITY, handled.size());
+        assertEquals(0, queue.size());
+        assertTrue(queue.offer(report(), null));
+    }
+
+    @Test
+    public void wakesTheExecutorUp() throws InterruptedException {
+        CountDownLatch handled = new CountDownLatch(1);
+        FlowReportQueue queue = new FlowReportQueue(CAPACITY, report -> handled.countDown());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(queue.offer(report(), executor));
+            assertTrue(handled.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void keepsReportsWhenTheExecutorIsStopped() {
+        FlowReportQueue queue = new FlowReportQueue(CAPACITY, report -> { });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+
+        assertTrue(queue.offer(report(), executor));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void survivesHandlerFailures() {
+        List<FlowReport> handled = new ArrayList<>();
+        FlowReportQueue queue = new FlowReportQueue(CAPACITY, report -> {
+            handled.add(report);
+            if (handled.size() == 1) {
+                throw new IllegalStateException("detection failed");
+            }
+        });
+        queue.offer(report(), null);
+        queue.offer(report(), null);
+
+        queue.drain();
+        assertEquals(2, handled.size());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the per-subnet aggregation of flow reports.
+ */
+public class FlowReportTest {
+
+    // Body as sent by a stub visibility server pushing a flow report
+    private static final String PUSHED_REPORT =
+            "[{\"source_address\": \"10.0.1.5\", \"number_of_packet\": 100, \"number_of_byte\": 1000},\n"
+                    + " {\"source_address\": \"10.0.1.77\", \"number_of_packet\": 50, \"number_of_byte\": 500},\n"
+                    + " {\"source_address\": \"10.0.2.1\", \"number_of_packet\": 7, \"number_of_byte\": 70},\n"
+                    + " {\"source_address\": \"10.0.3\", \"number_of_packet\": 9, \"number_of_byte\": 90}]";
+
+    @Test
+    public void aggregatesPushedReportPerSubnet() throws IOException {
+        FlowReport report = new FlowReport(1234, 24, 48);
+        FlowFeedParser.parse(new ByteArrayInputStream(PUSHED_REPORT.getBytes(StandardCharsets.UTF_8)),
+                             report::add);
+
+        assertEquals(3, report.flows());
+        assertEquals(2, report.subnets());
+        assertEquals(1234, report.timestamp());
+
+        Map<Long, long[]> subnets = new HashMap<>();
+        report.forEach((subnet, packets, bytes) -> subnets.put(subnet, new long[]{packets, bytes}));
+        assertEquals(150, subnets.get(0x0A000100L)[0]);
+        assertEquals(1500, subnets.get(0x0A000100L)[1]);
+        assertEquals(7, subnets.get(0x0A000200L)[0]);
+    }
+
+    @Test
+    public void aggregatesIp6FlowsApart() throws IOException {
+        FlowReport report = new FlowReport(1234, 24, 48);
+        FlowFeedParser.parse(new ByteArrayInputStream(
+                ("[{\"source_address\": \"2001:db8:1:2::5\", \"number_of_packet\": 100},\n"
+                        + " {\"source_address\": \"2001:db8:1:ff::7\", \"number_of_packet\": 50},\n"
+                        + " {\"source_address\": \"2001:db8:2::1\", \"number_of_packet\": 7},\n"
+                        + " {\"source_address\": \"10.0.1.5\", \"number_of_packet\": 3}]")
+                        .getBytes(StandardCharsets.UTF_8)), report::add);
+
+        assertEquals(4, report.flows());
+        assertEquals(3, report.subnets());
+
+        Map<Long, Long> subnets = new HashMap<>();
+        report.forEachIp6((subnet, packets, bytes) -> subnets.put(subnet, packets));
+        assertEquals(2, subnets.size());
+        assertEquals(150, (long) subnets.get(0x20010DB800010000L));
+        assertEquals(7, (long) subnets.get(0x20010DB800020000L));
+    }
+}
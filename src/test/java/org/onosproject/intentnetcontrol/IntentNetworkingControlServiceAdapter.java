@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.onlab.packet.IpPrefix;
+import org.onosproject.net.intent.MultiPointToSinglePointIntent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Test adapter for the intent networking control service.
+ */
+public class IntentNetworkingControlServiceAdapter implements IntentNetworkingControlService {
+
+    @Override
+    public boolean reportFlows(InputStream stream) throws IOException {
+        return false;
+    }
+
+    @Override
+    public long originAsn(IpPrefix prefix) {
+        return NO_ASN;
+    }
+
+    @Override
+    public IntentNetworkingControlConfig.ControllerConfig memberController(long asn) {
+        return null;
+    }
+
+    @Override
+    public MemberClient memberClient(long asn) {
+        return null;
+    }
+
+    @Override
+    public MultiPointToSinglePointIntent localIntent(String route) {
+        return null;
+    }
+
+    @Override
+    public ActiveRedirect activate(IpPrefix prefix) {
+        return null;
+    }
+
+    @Override
+    public Map<String, LatencyHistogram> redirectLatencies() {
+        return Collections.emptyMap();
+    }
+}
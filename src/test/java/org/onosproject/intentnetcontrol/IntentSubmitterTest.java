@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import org.junit.Test;
+import org.onosproject.net.intent.Intent;
+import org.onosproject.net.intent.IntentEvent;
+import org.onosproject.net.intent.IntentServiceAdapter;
+import org.onosproject.net.intent.IntentState;
+import org.onosproject.net.intent.MockIntent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the batched submission of redirect intents.
+ */
+public class IntentSubmitterTest {
+
+    private final List<Intent> submitted = new ArrayList<>();
+    private final IntentSubmitter submitter = new IntentSubmitter(new TestIntentService());
+
+    @Test
+    public void submitsBatchAndCompletesFromEvents() throws Exception {
+        Intent first = new MockIntent(1L);
+        Intent second = new MockIntent(2L);
+        IntentSubmitter.Batch batch = submitter.newBatch();
+        CompletableFuture<IntentState> firstCompletion = batch.add(first);
+        CompletableFuture<IntentState> secondCompletion = batch.add(second);
+        assertTrue(submitted.isEmpty());
+
+        CompletableFuture<Void> completion = batch.submit();
+        assertEquals(2, submitted.size());
+        assertEquals(2, submitter.pending());
+
+        submitter.update(new IntentEvent(IntentEvent.Type.INSTALL_REQ, first));
+        submitter.update(new IntentEvent(IntentEvent.Type.INSTALLED, first));
+        assertEquals(IntentState.INSTALLED, firstCompletion.get());
+        assertFalse(completion.isDone());
+
+        submitter.update(new IntentEvent(IntentEvent.Type.FAILED, second));
+        assertEquals(IntentState.FAILED, secondCompletion.get());
+        assertTrue(completion.isDone());
+        assertEquals(0, submitter.pending());
+        assertNull(submitter.completion(first.key()));
+        assertEquals(2, submitter.submitLatency().count());
+        assertEquals(1, submitter.installLatency().count());
+        assertEquals(1, submitter.totalLatency().count());
+    }
+
+    @Test
+    public void submitsLateIntentsRightAway() {
+        IntentSubmitter.Batch batch = submitter.newBatch();
+        assertTrue(batch.submit().isDone());
+
+        Intent intent = new MockIntent(3L);
+        CompletableFuture<IntentState> completion = batch.add(intent);
+        assertEquals(1, submitted.size());
+        assertEquals(completion, submitter.completion(intent.key()));
+    }
+
+    @Test
+    public void expiresIntentsWithoutEvents() throws InterruptedException {
+        IntentSubmitter.Batch batch = submitter.newBatch();
+        CompletableFuture<IntentState> completion = batch.add(new MockIntent(4L));
+        batch.submit();
+
+        assertEquals(0, submitter.expire(0));
+        assertEquals(1, submitter.expire(Long.MAX_VALUE));
+        try {
+            completion.get();
+            fail("Expired intent completed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    private class TestIntentService extends IntentServiceAdapter {
+        @Override
+        public void submit(Intent intent) {
+            submitted.add(intent);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the IPv4 prefix trie.
+ */
+public class Ip4PrefixTrieTest {
+
+    private static final int NET_10 = 0x0A000000;
+    private static final int NET_10_1 = 0x0A010000;
+    private static final int NET_10_1_2 = 0x0A010200;
+
+    @Test
+    public void exactMatch() {
+        Ip4PrefixTrie trie = new Ip4PrefixTrie();
+        trie.put(NET_10_1_2, 24, 65003);
+        trie.put(NET_10, 8, 65001);
+        trie.put(NET_10_1, 16, 65002);
+
+        assertEquals(3, trie.size());
+        assertEquals(65001, trie.get(NET_10, 8));
+        assertEquals(65002, trie.get(NET_10_1, 16));
+        assertEquals(65003, trie.get(NET_10_1_2 | 0x7F, 24));
+        assertEquals(Ip4PrefixTrie.NO_VALUE, trie.get(NET_10_1, 24));
+        assertEquals(Ip4PrefixTrie.NO_VALUE, trie.get(NET_10, 12));
+    }
+
+    @Test
+    public void replacesValue() {
+        Ip4PrefixTrie trie = new Ip4PrefixTrie();
+        trie.put(NET_10_1, 16, 65002);
+        trie.put(NET_10_1, 16, 65004);
+
+        assertEquals(1, trie.size());
+        assertEquals(65004, trie.get(NET_10_1, 16));
+    }
+
+    @Test
+    public void longestMatch() {
+        Ip4PrefixTrie trie = new Ip4PrefixTrie();
+        trie.put(NET_10, 8, 65001);
+        trie.put(NET_10_1_2, 24, 65003);
+        trie.put(0x0A010300, 24, 65004);
+
+        assertEquals(24, trie.longestMatchLength(NET_10_1_2 | 5, 32));
+        assertEquals(8, trie.longestMatchLength(NET_10_1_2 | 5, 23));
+        assertEquals(8, trie.longestMatchLength(0x0A020304, 32));
+        assertEquals(Ip4PrefixTrie.NO_MATCH, trie.longestMatchLength(0x0B000001, 32));
+    }
+
+    @Test
+    public void defaultAndHostRoutes() {
+        Ip4PrefixTrie trie = new Ip4PrefixTrie();
+        trie.put(0, 0, 1);
+        trie.put(0xC0A80001, 32, 2);
+
+        assertEquals(32, trie.longestMatchLength(0xC0A80001, 32));
+        assertEquals(0, trie.longestMatchLength(0xC0A80002, 32));
+        assertEquals(2, trie.get(0xC0A80001, 32));
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        Ip4PrefixTrie trie = new Ip4PrefixTrie();
+        for (int i = 0; i < 1000; i++) {
+            trie.put(NET_10 | (i << 8), 24, i);
+        }
+        assertEquals(1000, trie.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, trie.get(NET_10 | (i << 8), 24));
+            assertEquals(24, trie.longestMatchLength(NET_10 | (i << 8) | 1, 32));
+        }
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        Ip4PrefixTrie trie = new Ip4PrefixTrie();
+        trie.put(NET_10, 8, 65001);
+        Ip4PrefixTrie copy = trie.copy();
+        copy.put(NET_10_1, 16, 65002);
+        copy.put(NET_10, 8, 65005);
+
+        assertEquals(1, trie.size());
+        assertEquals(65001, trie.get(NET_10, 8));
+        assertEquals(Ip4PrefixTrie.NO_VALUE, trie.get(NET_10_1, 16));
+        assertEquals(2, copy.size());
+        assertEquals(65005, copy.get(NET_10, 8));
+    }
+
+    @Test
+    public void visitsEveryPrefix() {
+        Ip4PrefixTrie trie = new Ip4PrefixTrie();
+        trie.put(NET_10_1_2, 24, 65003);
+        trie.put(0x0A010300, 24, 65004);
+
+        Ip4PrefixTrie visited = new Ip4PrefixTrie();
+        trie.forEach(visited::put);
+        assertEquals(2, visited.size());
+        assertEquals(65003, visited.get(NET_10_1_2, 24));
+        assertEquals(65004, visited.get(0x0A010300, 24));
+    }
+
+    @Test
+    public void batchMatchesAgreeWithSingleMatches() {
+        Random random = new Random(7);
+        Ip4PrefixTrie trie = new Ip4PrefixTrie();
+        trie.put(0, 0, 1);
+        for (int i = 0; i < 2000; i++) {
+            trie.put(random.nextInt(), 8 + random.nextInt(25), i);
+        }
+
+        int[] addresses = new int[5000];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = random.nextInt();
+        }
+        addresses[0] = -1;
+        addresses[1] = 0;
+        addresses = Arrays.stream(addresses).boxed()
+                .sorted(Integer::compareUnsigned).mapToInt(Integer::intValue).toArray();
+
+        for (int maxLength : new int[] {32, 24, 16, 0}) {
+            int[] lengths = new int[addresses.length];
+            long[] values = new long[addresses.length];
+            Arrays.fill(lengths, -2);
+            trie.longestMatches(addresses, maxLength, (i, length, value) -> {
+                lengths[i] = length;
+                values[i] = value;
+            });
+            for (int i = 0; i < addresses.length; i++) {
+                int length = trie.longestMatchLength(addresses[i], maxLength);
+                assertEquals(length, lengths[i]);
+                assertEquals(trie.get(addresses[i], length), values[i]);
+            }
+        }
+    }
+}
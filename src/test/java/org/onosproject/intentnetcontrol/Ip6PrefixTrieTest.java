@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the IPv6 prefix trie.
+ */
+public class Ip6PrefixTrieTest {
+
+    // 2001:db8::/32, 2001:db8:1::/48 and 2001:db8:1:2::/64
+    private static final long NET_DB8 = 0x20010DB800000000L;
+    private static final long NET_DB8_1 = 0x20010DB800010000L;
+    private static final long NET_DB8_1_2 = 0x20010DB800010002L;
+
+    @Test
+    public void exactMatch() {
+        Ip6PrefixTrie trie = new Ip6PrefixTrie();
+        trie.put(NET_DB8_1_2, 0, 64, 65003);
+        trie.put(NET_DB8, 0, 32, 65001);
+        trie.put(NET_DB8_1, 0, 48, 65002);
+
+        assertEquals(3, trie.size());
+        assertEquals(65001, trie.get(NET_DB8, 0, 32));
+        assertEquals(65002, trie.get(NET_DB8_1, 0, 48));
+        assertEquals(65003, trie.get(NET_DB8_1_2, 0x1234L, 64));
+        assertEquals(Ip6PrefixTrie.NO_VALUE, trie.get(NET_DB8_1, 0, 64));
+        assertEquals(Ip6PrefixTrie.NO_VALUE, trie.get(NET_DB8, 0, 40));
+    }
+
+    @Test
+    public void longestMatchAcrossLowBits() {
+        Ip6PrefixTrie trie = new Ip6PrefixTrie();
+        trie.put(NET_DB8, 0, 32, 65001);
+        trie.put(NET_DB8_1_2, 0x8000000000000000L, 65, 65002);
+        trie.put(NET_DB8_1_2, 0xFFFF000000000000L, 112, 65003);
+
+        assertEquals(112, trie.longestMatchLength(NET_DB8_1_2, 0xFFFF000000000001L, 128));
+        assertEquals(65, trie.longestMatchLength(NET_DB8_1_2, 0xFFFF000000000001L, 111));
+        assertEquals(65, trie.longestMatchLength(NET_DB8_1_2, 0x8000000000000001L, 128));
+        assertEquals(32, trie.longestMatchLength(NET_DB8_1_2, 1, 128));
+        assertEquals(Ip6PrefixTrie.NO_MATCH, trie.longestMatchLength(0x20010DB900000000L, 1, 128));
+        assertEquals(65002, trie.get(NET_DB8_1_2, 0x8000000000000000L, 65));
+    }
+
+    @Test
+    public void defaultAndHostRoutes() {
+        Ip6PrefixTrie trie = new Ip6PrefixTrie();
+        trie.put(0, 0, 0, 1);
+        trie.put(NET_DB8, 1, 128, 2);
+
+        assertEquals(128, trie.longestMatchLength(NET_DB8, 1, 128));
+        assertEquals(0, trie.longestMatchLength(NET_DB8, 2, 128));
+        assertEquals(2, trie.get(NET_DB8, 1, 128));
+        assertEquals(1, trie.get(-1L, -1L, 0));
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        Ip6PrefixTrie trie = new Ip6PrefixTrie();
+        for (int i = 0; i < 1000; i++) {
+            trie.put(NET_DB8 | (i << 16), 0, 48, i);
+        }
+        assertEquals(1000, trie.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, trie.get(NET_DB8 | (i << 16), 0, 48));
+            assertEquals(48, trie.longestMatchLength(NET_DB8 | (i << 16) | 1, 1, 128));
+        }
+    }
+
+    @Test
+    public void copyIsIndependentAndVisitsEveryPrefix() {
+        Ip6PrefixTrie trie = new Ip6PrefixTrie();
+        trie.put(NET_DB8, 0, 32, 65001);
+        Ip6PrefixTrie copy = trie.copy();
+        copy.put(NET_DB8_1, 0, 48, 65002);
+
+        assertEquals(1, trie.size());
+        assertEquals(Ip6PrefixTrie.NO_VALUE, trie.get(NET_DB8_1, 0, 48));
+
+        Ip6PrefixTrie visited = new Ip6PrefixTrie();
+        copy.forEach(visited::put);
+        assertEquals(2, visited.size());
+        assertEquals(65001, visited.get(NET_DB8, 0, 32));
+        assertEquals(65002, visited.get(NET_DB8_1, 0, 48));
+    }
+
+    @Test
+    public void batchMatchesAgreeWithSingleMatches() {
+        Random random = new Random(7);
+        Ip6PrefixTrie trie = new Ip6PrefixTrie();
+        for (int i = 0; i < 2000; i++) {
+            trie.put(NET_DB8 | (random.nextLong() >>> 32), random.nextLong(), 32 + random.nextInt(97), i);
+        }
+        trie.put(0x2000000000000000L, 0, 3, 1);
+
+        long[] highs = new long[5000];
+        for (int i = 0; i < highs.length; i++) {
+            highs[i] = random.nextBoolean() ? NET_DB8 | (random.nextLong() >>> 32) : random.nextLong();
+        }
+        highs[0] = -1L;
+        highs[1] = 0;
+        highs = Arrays.stream(highs).boxed()
+                .sorted(Long::compareUnsigned).mapToLong(Long::longValue).toArray();
+
+        for (int maxLength : new int[] {64, 48, 33, 0}) {
+            int[] lengths = new int[highs.length];
+            long[] values = new long[highs.length];
+            Arrays.fill(lengths, -2);
+            trie.longestMatches(highs, maxLength, (i, length, value) -> {
+                lengths[i] = length;
+                values[i] = value;
+            });
+            for (int i = 0; i < highs.length; i++) {
+                int length = trie.longestMatchLength(highs[i], 0, maxLength);
+                assertEquals(length, lengths[i]);
+                assertEquals(trie.get(highs[i], 0, length), values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the REST client of the member controllers.
+ */
+public class MemberClientTest {
+
+    private HttpServer server;
+    private MemberClient client;
+    private final Set<Integer> clientPorts = new HashSet<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/onos/v1/intents/", this::handle);
+        server.start();
+        client = new MemberClient(InetAddress.getLoopbackAddress().getHostAddress(),
+                                  server.getAddress().getPort(), "onos", "rocks");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        synchronized (clientPorts) {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+        }
+        String request = read(exchange.getRequestBody());
+        String response;
+        int status;
+        if (exchange.getRequestURI().getPath().endsWith("/missing")) {
+            status = 404;
+            response = "{\"message\": \"not found\"}";
+        } else {
+            status = "POST".equals(exchange.getRequestMethod()) ? 201 : 200;
+            response = exchange.getRequestMethod() + " "
+                    + exchange.getRequestHeaders().getFirst("Authorization") + " " + request;
+        }
+        byte[] body = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static String read(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int count;
+        while ((count = is.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void sendsCredentialsPreemptively() throws IOException {
+        MemberClient.Response response = client.get("/onos/v1/intents/app/key");
+
+        assertEquals(200, response.status());
+        assertEquals("GET Basic b25vczpyb2Nrcw== ", response.body());
+
+        response = client.post("/onos/v1/intents/", "{\"key\": \"10.0.0.0/8\"}");
+        assertEquals(201, response.status());
+        assertEquals("POST Basic b25vczpyb2Nrcw== {\"key\": \"10.0.0.0/8\"}", response.body());
+    }
+
+    @Test
+    public void readsErrorResponses() throws IOException {
+        MemberClient.Response response = client.delete("/onos/v1/intents/app/missing");
+
+        assertEquals(404, response.status());
+        assertEquals("{\"message\": \"not found\"}", response.body());
+    }
+
+    @Test
+    public void reusesConnections() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            client.get("/onos/v1/intents/app/key");
+            client.get("/onos/v1/intents/app/missing");
+        }
+
+        assertEquals(1, clientPorts.size());
+    }
+}
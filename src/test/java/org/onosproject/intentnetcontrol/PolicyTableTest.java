@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.onlab.packet.IpPrefix;
+import org.onosproject.TestApplicationId;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the prefix policy lookup table.
+ */
+public class PolicyTableTest {
+
+    private static final String CONFIG =
+            "{\"policies\": ["
+            + "{\"prefix\": \"10.0.0.0/8\", \"policy\": \"block\"},"
+            + "{\"prefix\": \"10.1.0.0/16\", \"policy\": \"redirect\"},"
+            + "{\"prefix\": \"2001:db8::/32\", \"policy\": \"block\"}"
+            + "]}";
+
+    private static IntentNetworkingControlConfig config(String json) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode node = mapper.readTree(json);
+        IntentNetworkingControlConfig config = new IntentNetworkingControlConfig();
+        config.init(new TestApplicationId("test"), IntentNetworkingControl.CONFIG_KEY, node, mapper, c -> { });
+        return config;
+    }
+
+    @Test
+    public void longestConfiguredPrefixWins() throws IOException {
+        PolicyTable table = PolicyTable.of(config(CONFIG));
+
+        assertEquals(3, table.size());
+        assertEquals(ControlPolicy.BLOCK, table.policy(IpPrefix.valueOf("10.0.0.0/8")));
+        assertEquals(ControlPolicy.BLOCK, table.policy(IpPrefix.valueOf("10.2.0.0/16")));
+        assertEquals(ControlPolicy.REDIRECT, table.policy(IpPrefix.valueOf("10.1.2.0/24")));
+        assertEquals(ControlPolicy.REDIRECT, table.policy(IpPrefix.valueOf("11.0.0.0/8")));
+        // A configured prefix longer than the route prefix does not cover it
+        assertEquals(ControlPolicy.REDIRECT, table.policy(IpPrefix.valueOf("10.0.0.0/7")));
+        assertEquals(ControlPolicy.BLOCK, table.policy(IpPrefix.valueOf("2001:db8:1::/48")));
+        assertEquals(ControlPolicy.REDIRECT, table.policy(IpPrefix.valueOf("2001:db9::/32")));
+    }
+
+    @Test
+    public void skipsInvalidEntries() throws IOException {
+        IntentNetworkingControlConfig config = config(
+                "{\"policies\": ["
+                + "{\"prefix\": \"10.0.0.0/8\", \"policy\": \"block\"},"
+                + "{\"prefix\": \"10.1.0.0/x\", \"policy\": \"block\"},"
+                + "{\"prefix\": \"10.2.0.0/16\", \"policy\": \"blokc\"},"
+                + "{\"policy\": \"redirect\"}"
+                + "]}");
+
+        assertTrue(config.isValid());
+        PolicyTable table = PolicyTable.of(config);
+        assertEquals(1, table.size());
+        assertEquals(ControlPolicy.BLOCK, table.policy(IpPrefix.valueOf("10.2.0.0/16")));
+        assertTrue(config(CONFIG).isValid());
+        assertFalse(config("{\"policies\": {\"prefix\": \"10.0.0.0/8\"}}").isValid());
+    }
+
+    @Test
+    public void redirectsWithoutConfig() {
+        assertEquals(0, PolicyTable.of(null).size());
+        assertEquals(ControlPolicy.REDIRECT, PolicyTable.of(null).policy(IpPrefix.valueOf("10.0.0.0/8")));
+    }
+}
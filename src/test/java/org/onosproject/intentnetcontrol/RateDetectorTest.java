@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the rate-based surge detector.
+ */
+public class RateDetectorTest {
+
+    private static final long SUBNET = 0x0A000100L;
+
+    @Test
+    public void detectsSurge() {
+        RateDetector detector = new RateDetector(16, 1000, 0, 10);
+        assertFalse(detector.update(SUBNET, 0, 0, 0));
+
+        long packets = 0;
+        boolean surging = false;
+        for (long now = 10000; now <= 60000; now += 10000) {
+            packets += 50000;
+            surging = detector.update(SUBNET, packets, 0, now);
+        }
+        assertTrue(surging);
+        assertEquals(5000, detector.packetRate(SUBNET), 200);
+    }
+
+    @Test
+    public void ignoresSlowAccumulator() {
+        RateDetector detector = new RateDetector(16, 1000, 0, 10);
+        long packets = 200000;
+        for (long now = 0; now <= 600000; now += 10000) {
+            packets += 100;
+            assertFalse(detector.update(SUBNET, packets, 0, now));
+        }
+    }
+
+    @Test
+    public void detectsSurgeFromIncrements() {
+        RateDetector detector = new RateDetector(16, 1000, 0, 10);
+        assertFalse(detector.increment(SUBNET, 50000, 0, 0));
+
+        boolean surging = false;
+        for (long now = 10000; now <= 60000; now += 10000) {
+            surging = detector.increment(SUBNET, 50000, 0, now);
+        }
+        assertTrue(surging);
+        assertEquals(5000, detector.packetRate(SUBNET), 200);
+    }
+
+    @Test
+    public void spreadsIncrementsOverMissedSamples() {
+        RateDetector detector = new RateDetector(16, 1000, 0, 10);
+        detector.increment(SUBNET, 0, 0, 0);
+
+        // Samples without records for the subnet are skipped, not rebased
+        boolean surging = false;
+        for (long now = 20000; now <= 120000; now += 20000) {
+            surging = detector.increment(SUBNET, 10000, 0, now);
+        }
+        assertFalse(surging);
+        assertEquals(500, detector.packetRate(SUBNET), 50);
+    }
+
+    @Test
+    public void keepsSamplesOfTheSameMillisecond() {
+        RateDetector detector = new RateDetector(16, 0, 0, 10);
+        detector.increment(SUBNET, 0, 0, 0);
+        detector.increment(SUBNET, 30000, 0, 10000);
+        // A second report within the same millisecond adds to the next interval
+        detector.increment(SUBNET, 20000, 0, 10000);
+        detector.increment(SUBNET, 50000, 0, 20000);
+
+        RateDetector reference = new RateDetector(16, 0, 0, 10);
+        reference.increment(SUBNET, 0, 0, 0);
+        reference.increment(SUBNET, 30000, 0, 10000);
+        reference.increment(SUBNET, 70000, 0, 20000);
+        assertEquals(reference.packetRate(SUBNET), detector.packetRate(SUBNET), 1e-9);
+    }
+
+    @Test
+    public void rebasesWhenCountersDrop() {
+        RateDetector detector = new RateDetector(16, 0, 1000, 10);
+        detector.update(SUBNET, 0, 1000000, 0);
+        assertFalse(detector.update(SUBNET, 0, 10, 10000));
+        assertEquals(0, detector.byteRate(SUBNET), 0);
+    }
+
+    @Test
+    public void boundsAndExpiresTrackedSubnets() {
+        RateDetector detector = new RateDetector(4, 1000, 0, 10);
+        for (long subnet = 0; subnet < 8; subnet++) {
+            detector.update(subnet << 8, 0, 0, subnet * 1000);
+        }
+        assertEquals(4, detector.size());
+
+        detector.expire(2000);
+        assertEquals(2, detector.size());
+        detector.update(7L << 8, 0, 0, 9000);
+        assertEquals(3, detector.size());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.junit.Test;
+import org.onlab.packet.IpPrefix;
+import org.onosproject.TestApplicationId;
+import org.onosproject.core.ApplicationId;
+import org.onosproject.net.intent.Key;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the table of active redirects.
+ */
+public class RedirectTableTest {
+
+    private static final ApplicationId APP_ID = new TestApplicationId("test");
+    private static final IntentNetworkingControlConfig.ControllerConfig CONTROLLER =
+            new IntentNetworkingControlConfig.ControllerConfig("local", 65011, "10.0.0.11",
+                                                               "onos", "rocks", "of:0000000000000011/3");
+
+    private static ActiveRedirect redirect(String prefix, String key) {
+        return new ActiveRedirect(IpPrefix.valueOf(prefix), Key.of(key, APP_ID), CONTROLLER, 0);
+    }
+
+    @Test
+    public void removesByPrefix() {
+        RedirectTable table = new RedirectTable();
+        ActiveRedirect redirect = redirect("10.1.0.0/16", "10.1.0.0/16");
+        table.add(redirect);
+
+        assertTrue(table.isRedirected(IpPrefix.valueOf("10.1.0.0/16")));
+        assertSame(redirect, table.remove(IpPrefix.valueOf("10.1.0.0/16")));
+        assertFalse(table.isRedirected(IpPrefix.valueOf("10.1.0.0/16")));
+        // The intent key of a removed redirect no longer resolves
+        assertNull(table.remove(Key.of("10.1.0.0/16", APP_ID)));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void removesByIntentKey() {
+        RedirectTable table = new RedirectTable();
+        ActiveRedirect first = redirect("10.1.0.0/16", "10.1.0.0/16");
+        ActiveRedirect second = redirect("2001:db8::/32", "2001:db8::/32");
+        table.add(first);
+        table.add(second);
+
+        assertSame(second, table.remove(Key.of("2001:db8::/32", APP_ID)));
+        assertNull(table.remove(Key.of("2001:db8::/32", APP_ID)));
+        assertNull(table.remove(Key.of("10.2.0.0/16", APP_ID)));
+        assertSame(first, table.get(IpPrefix.valueOf("10.1.0.0/16")));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void replacedRedirectReleasesItsKey() {
+        RedirectTable table = new RedirectTable();
+        table.add(redirect("10.1.0.0/16", "old"));
+        ActiveRedirect replacement = redirect("10.1.0.0/16", "new");
+        table.add(replacement);
+
+        // Events of the replaced intent leave the new redirect in place
+        assertNull(table.remove(Key.of("old", APP_ID)));
+        assertSame(replacement, table.get(IpPrefix.valueOf("10.1.0.0/16")));
+        assertSame(replacement, table.remove(Key.of("new", APP_ID)));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void blockKeepsItsEntryAfterIntentEvents() {
+        RedirectTable table = new RedirectTable();
+        table.add(redirect("10.1.0.0/16", "10.1.0.0/16"));
+        ActiveRedirect block = new ActiveRedirect(IpPrefix.valueOf("10.1.0.0/16"),
+                                                  Key.of("block:10.1.0.0/16", APP_ID), CONTROLLER, 0,
+                                                  ControlPolicy.BLOCK);
+        table.add(block);
+
+        // The withdrawal of the former redirect intent leaves the drop rule tracked
+        assertNull(table.remove(Key.of("10.1.0.0/16", APP_ID)));
+        assertSame(block, table.get(IpPrefix.valueOf("10.1.0.0/16")));
+    }
+
+    @Test
+    public void clearsBothIndexes() {
+        RedirectTable table = new RedirectTable();
+        table.add(redirect("10.1.0.0/16", "10.1.0.0/16"));
+        table.clear();
+
+        assertEquals(0, table.size());
+        assertNull(table.remove(Key.of("10.1.0.0/16", APP_ID)));
+    }
+}
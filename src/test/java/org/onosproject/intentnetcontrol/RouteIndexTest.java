@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol;
+
+import org.junit.Test;
+import org.onosproject.routing.bgp.BgpRouteEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.onosproject.routing.bgp.BgpConstants.Update.AsPath.AS_CONFED_SEQUENCE;
+import static org.onosproject.routing.bgp.BgpConstants.Update.AsPath.AS_SEQUENCE;
+import static org.onosproject.routing.bgp.BgpConstants.Update.AsPath.AS_SET;
+
+/**
+ * Tests of the origin AS extraction of the route index.
+ */
+public class RouteIndexTest {
+
+    private static BgpRouteEntry.PathSegment segment(int type, Long... asNumbers) {
+        return new BgpRouteEntry.PathSegment((byte) type, new ArrayList<>(Arrays.asList(asNumbers)));
+    }
+
+    private static BgpRouteEntry.AsPath path(BgpRouteEntry.PathSegment... segments) {
+        return new BgpRouteEntry.AsPath(new ArrayList<>(Arrays.asList(segments)));
+    }
+
+    @Test
+    public void originOfSequence() {
+        assertEquals(65003, RouteIndex.originAsn(path(segment(AS_SEQUENCE, 65001L, 65002L),
+                                                      segment(AS_SEQUENCE, 65003L))));
+        assertEquals(4200000000L, RouteIndex.originAsn(path(segment(AS_SEQUENCE, 65001L, 4200000000L))));
+    }
+
+    @Test
+    public void originOfAggregate() {
+        assertEquals(65004, RouteIndex.originAsn(path(segment(AS_SEQUENCE, 65001L),
+                                                      segment(AS_SET, 65004L))));
+        assertEquals(65001, RouteIndex.originAsn(path(segment(AS_SEQUENCE, 65001L),
+                                                      segment(AS_SET, 65004L, 65005L))));
+        assertEquals(RouteIndex.NO_ASN, RouteIndex.originAsn(path(segment(AS_SET, 65004L, 65005L))));
+    }
+
+    @Test
+    public void noOrigin() {
+        assertEquals(RouteIndex.NO_ASN, RouteIndex.originAsn(path()));
+        assertEquals(RouteIndex.NO_ASN, RouteIndex.originAsn(path(segment(AS_CONFED_SEQUENCE, 65100L))));
+    }
+}
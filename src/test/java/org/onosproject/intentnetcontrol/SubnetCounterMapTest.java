@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the primitive subnet counter map.
+ */
+public class SubnetCounterMapTest {
+
+    @Test
+    public void sumsPerSubnet() {
+        SubnetCounterMap map = new SubnetCounterMap();
+        map.add(0x0A000100L, 60000);
+        map.add(0x0A000200L, 10);
+        assertEquals(110000, map.add(0x0A000100L, 50000));
+
+        assertEquals(2, map.size());
+        assertEquals(110000, map.get(0x0A000100L));
+        assertEquals(10, map.get(0x0A000200L));
+        assertEquals(0, map.get(0x0A000300L));
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        SubnetCounterMap map = new SubnetCounterMap();
+        for (long subnet = 0; subnet < 10000; subnet++) {
+            map.add(subnet << 8, subnet);
+            map.add(subnet << 8, 1);
+        }
+        assertEquals(10000, map.size());
+
+        Map<Long, Long> entries = new HashMap<>();
+        map.forEach(entries::put);
+        assertEquals(10000, entries.size());
+        assertEquals(Long.valueOf(4243), entries.get(4242L << 8));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(4242L << 8));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.intentnetcontrol;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the hashed timing wheel.
+ */
+public class TimingWheelTest {
+
+    @Test
+    public void expiresKeysAtDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 1000, 0);
+        wheel.schedule("a", 2500);
+        wheel.schedule("b", 30000);
+
+        assertTrue(wheel.advance(2999).isEmpty());
+        assertEquals(ImmutableList.of("a"), wheel.advance(3000));
+        // Beyond one turn of the wheel
+        assertTrue(wheel.advance(29999).isEmpty());
+        assertEquals(ImmutableList.of("b"), wheel.advance(30000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void rescheduleAndCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 1000, 0);
+        wheel.schedule("a", 2000);
+        wheel.schedule("b", 2000);
+        wheel.schedule("a", 12000);
+        assertTrue(wheel.cancel("b"));
+        assertFalse(wheel.cancel("b"));
+
+        assertTrue(wheel.advance(11000).isEmpty());
+        assertTrue(wheel.isScheduled("a"));
+        assertEquals(ImmutableList.of("a"), wheel.advance(12000));
+        assertFalse(wheel.isScheduled("a"));
+    }
+
+    @Test
+    public void matchesDeadlinesOverLongAdvances() {
+        Random random = new Random(7);
+        TimingWheel<Integer> wheel = new TimingWheel<>(16, 10, 0);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        long now = 0;
+        for (int step = 0; step < 200; step++) {
+            for (int i = 0; i < 20; i++) {
+                int key = random.nextInt(500);
+                long deadline = now + random.nextInt(2000);
+                wheel.schedule(key, deadline);
+                deadlines.put(key, deadline);
+            }
+            // Advances both within one turn of the wheel and over several
+            now += random.nextInt(step % 10 == 0 ? 1000 : 50);
+            List<Integer> expired = wheel.advance(now);
+            for (Integer key : expired) {
+                long deadline = deadlines.remove(key);
+                assertTrue(key + " expired early", deadline <= now);
+            }
+            List<Integer> due = new ArrayList<>();
+            for (Map.Entry<Integer, Long> entry : deadlines.entrySet()) {
+                // Deadlines are rounded up to the tick
+                if ((entry.getValue() + 9) / 10 * 10 <= now) {
+                    due.add(entry.getKey());
+                }
+            }
+            assertTrue(due + " did not expire", due.isEmpty());
+            assertEquals(deadlines.size(), wheel.size());
+        }
+    }
+}
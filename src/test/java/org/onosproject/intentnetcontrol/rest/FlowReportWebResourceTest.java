@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.intentnetcontrol.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.osgi.ServiceDirectory;
+import org.onlab.osgi.TestServiceDirectory;
+import org.onlab.rest.BaseResource;
+import org.onosproject.intentnetcontrol.IntentNetworkingControlService;
+import org.onosproject.intentnetcontrol.IntentNetworkingControlServiceAdapter;
+import org.onosproject.rest.resources.ResourceTest;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests of the flow report REST resource.
+ */
+public class FlowReportWebResourceTest extends ResourceTest {
+
+    private static final int MAX_PENDING_REPORTS = 64;
+    private static final String REPORT =
+            "[{\"source_address\": \"10.0.1.5\", \"number_of_packet\": 150000, \"number_of_byte\": 9000000}]";
+
+    private final MockIntentNetworkingControlService service = new MockIntentNetworkingControlService();
+
+    /**
+     * Constructs the flow report resource test.
+     */
+    public FlowReportWebResourceTest() {
+        super(ResourceConfig.forApplicationClass(IntentNetworkingControlWebApplication.class));
+    }
+
+    /**
+     * Registers the mock service used by the resource.
+     */
+    @Before
+    public void setUpTest() {
+        ServiceDirectory testDirectory = new TestServiceDirectory()
+                .add(IntentNetworkingControlService.class, service);
+        BaseResource.setServiceDirectory(testDirectory);
+    }
+
+    private Response post(String body) {
+        WebTarget wt = target();
+        return wt.path("flows").request().post(Entity.json(body));
+    }
+
+    /**
+     * Tests that a pushed report is handed to the service and accepted.
+     */
+    @Test
+    public void acceptsReport() {
+        Response response = post(REPORT);
+
+        assertEquals(Response.Status.ACCEPTED.getStatusCode(), response.getStatus());
+        assertEquals(1, service.reports.size());
+        assertEquals("10.0.1.5", service.reports.get(0).get(0).get("source_address").asText());
+    }
+
+    /**
+     * Tests that a report that cannot be parsed is rejected.
+     */
+    @Test
+    public void rejectsMalformedReport() {
+        Response response = post("[{\"source_address\": ");
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        assertTrue(response.readEntity(String.class).contains("error"));
+        assertEquals(0, service.reports.size());
+    }
+
+    /**
+     * Tests that reports beyond the pending queue are refused with a retry hint.
+     */
+    @Test
+    public void throttlesWhenQueueIsFull() {
+        for (int i = 0; i < MAX_PENDING_REPORTS; i++) {
+            assertEquals(Response.Status.ACCEPTED.getStatusCode(), post(REPORT).getStatus());
+        }
+
+        Response response = post(REPORT);
+        assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), response.getStatus());
+        assertEquals("1", response.getHeaderString("Retry-After"));
+        assertEquals(MAX_PENDING_REPORTS, service.reports.size());
+    }
+
+    /**
+     * Mock service queuing the parsed reports up to the daemon's limit.
+     */
+    private static class MockIntentNetworkingControlService extends IntentNetworkingControlServiceAdapter {
+
+        private final ObjectMapper mapper = new ObjectMapper();
+        private final List<JsonNode> reports = new ArrayList<>();
+
+        @Override
+        public boolean reportFlows(InputStream stream) throws IOException {
+            JsonNode report = mapper.readTree(stream);
+            if (reports.size() >= MAX_PENDING_REPORTS) {
+                return false;
+            }
+            reports.add(report);
+            return true;
+        }
+    }
+}